@@ -0,0 +1,235 @@
+package concert_booking_system;
+
+import concert_booking_system.entity.EventShow;
+import concert_booking_system.entity.Seat;
+import concert_booking_system.entity.Venue;
+import concert_booking_system.enums.BookingMode;
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.enums.SeatType;
+import concert_booking_system.exception.SeatContendedException;
+import concert_booking_system.inventory.SeatInventory;
+import concert_booking_system.payment.FakePaymentGateway;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load-generation mode: floods BookingSystem with simulated buyers, one virtual
+ * thread each, and reports throughput, latency percentiles and conflict/retry rates.
+ *
+ * Usage (all optional):
+ *   --buyers=100000 --seats=80000 --seatsPerRequest=2 --maxRetries=3
+ *   --distribution=HOT_FRONT_ROWS|UNIFORM|BEST_AVAILABLE
+ *   --paymentLatencyMs=0 --paymentFailureRate=0.0
+ *   --mode=LOCK_FREE|SINGLE_WRITER
+ */
+public class BookingLoadDriver {
+
+    /**
+     * How a simulated buyer picks seats.
+     */
+    public enum SeatSelection {
+        // 80% of buyers aim at the first 10% of the house
+        HOT_FRONT_ROWS,
+        UNIFORM,
+        // Server-side allocation through bookBestAvailable
+        BEST_AVAILABLE
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int buyers = Integer.parseInt(options.getOrDefault("buyers", "100000"));
+        int seatCount = Integer.parseInt(options.getOrDefault("seats", "80000"));
+        int seatsPerRequest = Integer.parseInt(options.getOrDefault("seatsPerRequest", "2"));
+        int maxRetries = Integer.parseInt(options.getOrDefault("maxRetries", "3"));
+        SeatSelection selection = SeatSelection.valueOf(options.getOrDefault("distribution", "HOT_FRONT_ROWS"));
+        long paymentLatencyMs = Long.parseLong(options.getOrDefault("paymentLatencyMs", "0"));
+        double paymentFailureRate = Double.parseDouble(options.getOrDefault("paymentFailureRate", "0.0"));
+        BookingMode mode = BookingMode.valueOf(options.getOrDefault("mode", "LOCK_FREE"));
+
+        BookingSystem bookingSystem = BookingSystem.getInstance();
+        bookingSystem.setPaymentGateway(new FakePaymentGateway(paymentLatencyMs, paymentFailureRate));
+
+        List<Seat> seats = new ArrayList<>(seatCount);
+        for (int i = 0; i < seatCount; i++) {
+            seats.add(new Seat("S" + (i + 1), SeatType.REGULAR, SeatStatus.AVAILABLE));
+        }
+        EventShow show = new EventShow("load-" + System.nanoTime(), System.currentTimeMillis(),
+                new Venue("load-venue", "LoadTest", seats));
+        bookingSystem.addEvent(show);
+        bookingSystem.setBookingMode(show.getEventId(), mode);
+
+        System.out.println("=== Booking Load Driver ===");
+        System.out.println("buyers=" + buyers + " seats=" + seatCount + " seatsPerRequest=" + seatsPerRequest
+                + " distribution=" + selection + " paymentLatencyMs=" + paymentLatencyMs
+                + " paymentFailureRate=" + paymentFailureRate + " mode=" + mode);
+
+        LoadResult result = run(bookingSystem, show, buyers, seatsPerRequest, maxRetries, selection);
+        result.print();
+    }
+
+    public static LoadResult run(BookingSystem bookingSystem,
+                                 EventShow show,
+                                 int buyers,
+                                 int seatsPerRequest,
+                                 int maxRetries,
+                                 SeatSelection selection) throws InterruptedException {
+        LoadResult result = new LoadResult(buyers * (maxRetries + 1));
+        CountDownLatch startGate = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < buyers; i++) {
+                String userId = "buyer-" + i;
+                executor.submit(() -> {
+                    startGate.await();
+                    simulateBuyer(bookingSystem, show, userId, seatsPerRequest, maxRetries, selection, result);
+                    return null;
+                });
+            }
+            result.startNanos = System.nanoTime();
+            startGate.countDown();
+        } // close() waits for every buyer
+        result.endNanos = System.nanoTime();
+        return result;
+    }
+
+    private static void simulateBuyer(BookingSystem bookingSystem,
+                                      EventShow show,
+                                      String userId,
+                                      int seatsPerRequest,
+                                      int maxRetries,
+                                      SeatSelection selection,
+                                      LoadResult result) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                result.retries.increment();
+            }
+            List<String> seatIds = Collections.emptyList();
+            if (selection != SeatSelection.BEST_AVAILABLE) {
+                seatIds = pickSeats(show, seatsPerRequest, selection);
+            }
+            long start = System.nanoTime();
+            try {
+                if (selection == SeatSelection.BEST_AVAILABLE) {
+                    bookingSystem.bookBestAvailable(userId, show.getEventId(), seatsPerRequest, SeatType.REGULAR);
+                } else {
+                    bookingSystem.bookTicket(userId, show.getEventId(), seatIds);
+                }
+                result.record(System.nanoTime() - start);
+                result.booked.increment();
+                return;
+            } catch (RuntimeException ex) {
+                result.record(System.nanoTime() - start);
+                // Seats held by another buyer may free up: a conflict worth retrying
+                if (ex instanceof SeatContendedException || ex.getCause() instanceof SeatContendedException) {
+                    result.conflicts.increment();
+                    continue;
+                }
+                if (selection == SeatSelection.BEST_AVAILABLE && ex.getCause() == null) {
+                    // The allocator found no block left (or gave up under contention)
+                    result.soldOut.increment();
+                    return;
+                }
+                // Booked seats surface as an IllegalStateException cause; anything else is final
+                if (!(ex.getCause() instanceof IllegalStateException)) {
+                    result.failed.increment();
+                    return;
+                }
+                result.conflicts.increment();
+            }
+        }
+        result.gaveUp.increment();
+    }
+
+    private static List<String> pickSeats(EventShow show, int count, SeatSelection selection) {
+        SeatInventory inventory = show.getInventory();
+        int capacity = inventory.capacity();
+        List<String> seatIds = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        int range = capacity;
+        if (selection == SeatSelection.HOT_FRONT_ROWS && random.nextInt(10) < 8) {
+            range = Math.max(count, capacity / 10);
+        }
+        // Adjacent seats from a random start, like a buyer picking a block on the seat map
+        int start = random.nextInt(Math.max(1, range - count + 1));
+        for (int slot = start; slot < start + count && slot < capacity; slot++) {
+            seatIds.add(inventory.getLayout().seatAt(slot).getSeatId());
+        }
+        return seatIds;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    public static class LoadResult {
+        private final long[] latencies;
+        private final AtomicInteger samples = new AtomicInteger();
+        private final LongAdder booked = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder gaveUp = new LongAdder();
+        private final LongAdder soldOut = new LongAdder();
+        private long startNanos;
+        private long endNanos;
+
+        LoadResult(int maxSamples) {
+            this.latencies = new long[maxSamples];
+        }
+
+        void record(long nanos) {
+            int index = samples.getAndIncrement();
+            if (index < latencies.length) {
+                latencies[index] = nanos;
+            }
+        }
+
+        public long getBooked() {
+            return booked.sum();
+        }
+
+        public double getThroughputPerSecond() {
+            return samples.get() / ((endNanos - startNanos) / 1e9);
+        }
+
+        public long percentileNanos(double percentile) {
+            int count = Math.min(samples.get(), latencies.length);
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(percentile / 100.0 * count) - 1)];
+        }
+
+        public void print() {
+            long attempts = samples.get();
+            System.out.println("--- Results ---");
+            System.out.printf("elapsed:     %.1f ms%n", (endNanos - startNanos) / 1e6);
+            System.out.printf("attempts:    %d (%.0f/s)%n", attempts, getThroughputPerSecond());
+            System.out.println("booked:      " + booked.sum());
+            System.out.println("failed:      " + failed.sum() + " (payment or validation)");
+            System.out.println("gave up:     " + gaveUp.sum() + " (out of retries)");
+            System.out.println("sold out:    " + soldOut.sum());
+            System.out.printf("conflicts:   %d (%.2f%% of attempts)%n", conflicts.sum(),
+                    attempts == 0 ? 0.0 : 100.0 * conflicts.sum() / attempts);
+            System.out.println("retries:     " + retries.sum());
+            System.out.printf("latency p50: %.3f ms%n", percentileNanos(50) / 1e6);
+            System.out.printf("latency p99: %.3f ms%n", percentileNanos(99) / 1e6);
+            System.out.printf("latency p999: %.3f ms%n", percentileNanos(99.9) / 1e6);
+        }
+    }
+
+}
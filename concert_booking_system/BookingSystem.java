@@ -1,355 +1,2038 @@
 package concert_booking_system;
 
+import concert_booking_system.admission.AdmissionController;
+import concert_booking_system.admission.WaitStatus;
+import concert_booking_system.availability.AvailabilityDelta;
+import concert_booking_system.availability.AvailabilityFeed;
+import concert_booking_system.availability.AvailabilityListener;
+import concert_booking_system.availability.AvailabilitySnapshot;
+import concert_booking_system.engine.BookingCommand;
+import concert_booking_system.engine.EventWriter;
 import concert_booking_system.entity.EventShow;
+import concert_booking_system.entity.GroupBooking;
+import concert_booking_system.entity.Ids;
+import concert_booking_system.entity.CancellationReport;
 import concert_booking_system.entity.Seat;
+import concert_booking_system.entity.SeatHold;
+import concert_booking_system.entity.SeatLayout;
 import concert_booking_system.entity.Ticket;
-import concert_booking_system.entity.Venue;
+import concert_booking_system.entity.TicketStore;
+import concert_booking_system.enums.BookingMode;
+import concert_booking_system.enums.HoldStatus;
 import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.enums.SeatType;
 import concert_booking_system.enums.TicketStatus;
 import concert_booking_system.exception.PaymentProcessingException;
+import concert_booking_system.exception.SeatContendedException;
+import concert_booking_system.idempotency.IdempotencyCache;
+import concert_booking_system.index.EventCatalog;
+import concert_booking_system.index.TicketIndex;
+import concert_booking_system.inventory.ContentionStats;
+import concert_booking_system.inventory.MappedSeatWords;
+import concert_booking_system.inventory.SeatInventory;
+import concert_booking_system.metrics.BookingMetrics;
+import concert_booking_system.payment.FakePaymentGateway;
+import concert_booking_system.payment.PaymentGateway;
+import concert_booking_system.persistence.BookingJournal;
+import concert_booking_system.persistence.JournalReader;
+import concert_booking_system.persistence.JournalRecord;
+import concert_booking_system.persistence.RecoveryStats;
+import concert_booking_system.pricing.PriceTable;
+import concert_booking_system.pricing.PricingEngine;
+import concert_booking_system.pricing.PromoCode;
+import concert_booking_system.scheduler.HashedTimerWheel;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class BookingSystem {
 
     private static final BookingSystem INSTANCE = new BookingSystem();
 
+    private static final long DEFAULT_HOLD_TTL_MILLIS = 5 * 60 * 1000;
+    private static final long HOLD_WHEEL_TICK_MILLIS = 100;
+    private static final int HOLD_WHEEL_SIZE = 512;
+    private static final int MAX_IN_FLIGHT_PAYMENTS = 1024;
+    private static final int BEST_AVAILABLE_SPREAD = 8;
+    private static final int BEST_AVAILABLE_MAX_ATTEMPTS = 16;
+    private static final long ADMISSION_TOKEN_TTL_MILLIS = 10 * 60 * 1000;
+    private static final long WAITING_SESSION_IDLE_MILLIS = 2 * 60 * 1000;
+    private static final int WRITER_RING_CAPACITY = 1 << 14;
+    private static final int WRITER_MAX_BATCH = 256;
+    private static final long AVAILABILITY_PUBLISH_MILLIS = 100;
+    private static final long CONTENDED_BACKOFF_BASE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long CONTENDED_BACKOFF_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long IDEMPOTENCY_TTL_MILLIS = 10 * 60 * 1000;
+    private static final int IDEMPOTENCY_MAX_KEYS = 100_000;
+
     private final Map<String, EventShow> eventsMap;
-    private final Map<String, Ticket> ticketsMap;
-    private final Map<String, Map<String, ReentrantLock>> seatLocks;
+    // Date and venue indexes over eventsMap for browse queries
+    private final EventCatalog eventCatalog;
+    private final TicketStore ticketStore;
+    private final Map<String, SeatHold> holdsMap;
+    private final TicketIndex ticketIndex;
+    private final AdmissionController admissionController;
+    private final PricingEngine pricingEngine;
+    // Events in SINGLE_WRITER mode; absent means LOCK_FREE
+    private final Map<String, EventWriter<BookingCommand>> eventWriters;
+    // Created on first availability request for an event
+    private final Map<String, AvailabilityFeed> availabilityFeeds;
+    private ScheduledExecutorService availabilityPublisher;
+    private final BookingMetrics metrics;
+    // Null unless startMetricsDump is running
+    private ScheduledExecutorService metricsDumper;
+    private final HashedTimerWheel holdExpiryWheel;
+    // Bookings by (userId, idempotency key)
+    private final IdempotencyCache<Ticket> idempotentBookings;
+    // One virtual thread per in-flight payment, capped so a slow gateway can't pile up unbounded work
+    private final ExecutorService paymentExecutor;
+    private final Semaphore paymentPermits;
+    private volatile PaymentGateway paymentGateway;
+    // Null until enableJournal; bookings are in-memory only without it
+    private volatile BookingJournal journal;
+    private volatile Path journalDirectory;
+    private final Object checkpointLock = new Object();
+    // Null keeps seat inventories on the heap; otherwise one mapped file per event
+    private volatile Path seatStoreDirectory;
 
     private BookingSystem() {
         eventsMap = new ConcurrentHashMap<>();
-        ticketsMap = new ConcurrentHashMap<>();
-        seatLocks = new ConcurrentHashMap<>();
+        eventCatalog = new EventCatalog();
+        ticketStore = new TicketStore();
+        holdsMap = new ConcurrentHashMap<>();
+        ticketIndex = new TicketIndex();
+        pricingEngine = new PricingEngine();
+        eventWriters = new ConcurrentHashMap<>();
+        availabilityFeeds = new ConcurrentHashMap<>();
+        metrics = new BookingMetrics();
+        holdExpiryWheel = new HashedTimerWheel("SeatHold-Expiry", HOLD_WHEEL_TICK_MILLIS, HOLD_WHEEL_SIZE);
+        admissionController = new AdmissionController(ADMISSION_TOKEN_TTL_MILLIS, WAITING_SESSION_IDLE_MILLIS, holdExpiryWheel);
+        idempotentBookings = new IdempotencyCache<>(IDEMPOTENCY_MAX_KEYS, IDEMPOTENCY_TTL_MILLIS, holdExpiryWheel);
+        paymentExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        paymentPermits = new Semaphore(MAX_IN_FLIGHT_PAYMENTS);
+        paymentGateway = new FakePaymentGateway(0, 0.05);
+    }
+
+    public static BookingSystem getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * A fresh, independent instance, for partitioned deployments where every shard
+     * owns its own events (see ShardRouter). Single-node callers use getInstance().
+     */
+    public static BookingSystem newInstance() {
+        return new BookingSystem();
+    }
+
+    // Admin operations
+    public void addEvent(EventShow eventShow) {
+        Path storeDirectory = seatStoreDirectory;
+        if (storeDirectory == null) {
+            eventShow.openInventory();
+        } else {
+            // Re-adding an event after a restart maps the same file and picks its seat states back up
+            eventShow.openInventory(layout -> MappedSeatWords.open(
+                    seatFile(storeDirectory, eventShow.getEventId()), layout));
+            if (journal != null) {
+                // Tickets are known (recovered, or kept since the event was last removed): they win over the file
+                reconcileSeats(eventShow);
+            }
+        }
+        pricingEngine.register(eventShow.getEventId(), eventShow.getInventory(), PriceTable.DEFAULT);
+        eventsMap.put(eventShow.getEventId(), eventShow);
+        eventCatalog.add(eventShow);
+    }
+
+    /**
+     * Takes the event off sale and frees everything kept per event: its writer,
+     * waiting room, availability feed, prices, open holds and seat inventory (with
+     * the counters and contention stats hanging off it). Booked tickets stay
+     * queryable as the buyers' records.
+     */
+    public void removeEvent(EventShow eventShow) {
+        admissionController.closeRoom(eventShow.getEventId());
+        releaseEventHolds(eventShow.getEventId());
+        EventWriter<BookingCommand> writer = eventWriters.remove(eventShow.getEventId());
+        if (writer != null) {
+            writer.shutdown();
+        }
+        AvailabilityFeed feed = availabilityFeeds.remove(eventShow.getEventId());
+        if (feed != null) {
+            feed.close();
+        }
+        pricingEngine.unregister(eventShow.getEventId());
+        eventCatalog.remove(eventShow.getEventId());
+        EventShow removed = eventsMap.remove(eventShow.getEventId());
+        if (removed != null) {
+            removed.closeInventory();
+        }
+    }
+
+    private static Path seatFile(Path storeDirectory, String eventId) {
+        return storeDirectory.resolve(eventId + ".seats");
+    }
+
+    // Called once the inventory is closed; with a journal, reconcileSeats would also free the seats on re-add
+    private void deleteSeatFile(String eventId) {
+        Path storeDirectory = seatStoreDirectory;
+        if (storeDirectory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(seatFile(storeDirectory, eventId));
+        } catch (IOException ex) {
+            System.err.println("[BookingSystem] Seat file not deleted for cancelled event " + eventId
+                    + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Removes every event that started before cutoffMillis (e.g. now), so finished
+     * shows don't hold on to their per-event state.
+     *
+     * @return ids of the events removed
+     */
+    public List<String> removeCompletedEvents(long cutoffMillis) {
+        List<String> removed = new ArrayList<>();
+        for (EventShow event : eventCatalog.snapshot().between(Long.MIN_VALUE, cutoffMillis)) {
+            removeEvent(event);
+            removed.add(event.getEventId());
+        }
+        return removed;
+    }
+
+    // Open holds die with their event; without this they would linger until their TTL
+    private void releaseEventHolds(String eventId) {
+        for (SeatHold hold : holdsMap.values()) {
+            if (hold.getEventId().equals(eventId) && hold.compareAndSetStatus(HoldStatus.ACTIVE, HoldStatus.RELEASED)) {
+                releaseHeldSeats(hold);
+                untrackHold(hold);
+                journalAsync(JournalRecord.holdEnded(hold.getHoldId()));
+            }
+        }
+    }
+
+    /**
+     * Keeps the seat states of events added from now on in memory-mapped files under
+     * directory (off the Java heap, surviving restarts). Pass null to go back to heap.
+     */
+    public void setSeatStoreDirectory(Path directory) {
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create seat store directory " + directory, e);
+            }
+        }
+        seatStoreDirectory = directory;
+    }
+
+    public EventShow getEventDetails(String eventId) {
+        if (!eventsMap.containsKey(eventId)) {
+            throw new IllegalArgumentException("No Such Event Found");
+        }
+        return eventsMap.get(eventId);
+    }
+
+    // Catalog
+    /**
+     * Events dated in [fromMillis, toMillis), soonest first.
+     */
+    public List<EventShow> getEventsBetween(long fromMillis, long toMillis) {
+        return eventCatalog.snapshot().between(fromMillis, toMillis);
+    }
+
+    /**
+     * Up to limit events dated fromMillis (e.g. now) or later, soonest first.
+     */
+    public List<EventShow> getUpcomingEvents(long fromMillis, int limit) {
+        return eventCatalog.snapshot().upcoming(fromMillis, limit);
+    }
+
+    /**
+     * Events at the venue dated in [fromMillis, toMillis), soonest first.
+     */
+    public List<EventShow> getEventsAtVenue(String venueId, long fromMillis, long toMillis) {
+        if (venueId == null || venueId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Venue ID cannot be null or empty");
+        }
+        return eventCatalog.snapshot().atVenue(venueId, fromMillis, toMillis);
+    }
+
+    /**
+     * The whole catalog at one instant, for pages that run several queries and need
+     * them to agree with each other.
+     */
+    public EventCatalog.Snapshot getCatalogSnapshot() {
+        return eventCatalog.snapshot();
+    }
+
+    /**
+     * Picks how bookTicket/bookTicketAsync/cancelTicket run for the event:
+     *
+     * LOCK_FREE (default): each caller thread reserves its seats with CAS on the
+     * inventory. Conflicting callers race; losers fail fast.
+     *
+     * SINGLE_WRITER: callers enqueue commands on a ring buffer owned by one writer
+     * thread for the event. The writer applies them in arrival order, a batch at a
+     * time, with no CAS contention, so under a stampede on one event the outcome is
+     * deterministic (first come, first served) and seat state is touched by one
+     * thread. Payment still runs on the payment executor, off the writer.
+     *
+     * Holds and best-available allocation keep using the inventory directly; they
+     * stay correct alongside the writer because the inventory is still CAS-guarded.
+     */
+    public void setBookingMode(String eventId, BookingMode mode) {
+        getEventDetails(eventId);
+        if (mode == null) {
+            throw new IllegalArgumentException("Booking mode cannot be null");
+        }
+        if (mode == BookingMode.SINGLE_WRITER) {
+            eventWriters.computeIfAbsent(eventId, id -> new EventWriter<>("EventWriter-" + id,
+                    WRITER_RING_CAPACITY, WRITER_MAX_BATCH, batch -> applyCommands(id, batch)));
+        } else {
+            EventWriter<BookingCommand> writer = eventWriters.remove(eventId);
+            if (writer != null) {
+                // Applies whatever is already queued before returning
+                writer.shutdown();
+            }
+        }
+    }
+
+    public BookingMode getBookingMode(String eventId) {
+        return eventWriters.containsKey(eventId) ? BookingMode.SINGLE_WRITER : BookingMode.LOCK_FREE;
+    }
+
+    // Seat-map availability
+    /**
+     * Versioned availability of every seat, cached until the next published change.
+     * Seat-map clients fetch this once, then follow deltas from its version.
+     */
+    public AvailabilitySnapshot getAvailability(String eventId) {
+        return availabilityFeed(eventId).snapshot();
+    }
+
+    /**
+     * Poll-style catch-up: every change after sinceVersion. Throws
+     * IllegalStateException if that version is too old to replay; refetch the snapshot.
+     */
+    public List<AvailabilityDelta> getAvailabilityChanges(String eventId, long sinceVersion) {
+        return availabilityFeed(eventId).deltasSince(sinceVersion);
+    }
+
+    /**
+     * Push-style: catches the listener up from fromVersion (-1 for a fresh snapshot),
+     * then delivers each new delta as it is published, roughly every
+     * AVAILABILITY_PUBLISH_MILLIS while seats are changing.
+     */
+    public AvailabilityFeed.Subscription subscribeAvailability(String eventId,
+                                                               long fromVersion,
+                                                               AvailabilityListener listener) {
+        return availabilityFeed(eventId).subscribe(fromVersion, listener);
+    }
+
+    /**
+     * Seats of the type still free for the event, in O(1) ("only 12 VIP seats left").
+     */
+    public long getAvailableSeatCount(String eventId, SeatType seatType) {
+        if (seatType == null) {
+            throw new IllegalArgumentException("Seat type cannot be null");
+        }
+        return inventoryOf(eventId).counters().available(seatType);
+    }
+
+    public long getAvailableSeatCount(String eventId) {
+        return inventoryOf(eventId).counters().available();
+    }
+
+    /**
+     * True once every seat is booked or under maintenance; seats on hold still count
+     * as unsold because an expiring hold releases them.
+     */
+    public boolean isSoldOut(String eventId) {
+        return inventoryOf(eventId).counters().isSoldOut();
+    }
+
+    private AvailabilityFeed availabilityFeed(String eventId) {
+        AvailabilityFeed feed = availabilityFeeds.get(eventId);
+        if (feed != null) {
+            return feed;
+        }
+        SeatInventory inventory = inventoryOf(eventId);
+        startAvailabilityPublisher();
+        return availabilityFeeds.computeIfAbsent(eventId, id -> AvailabilityFeed.open(id, inventory));
+    }
+
+    private synchronized void startAvailabilityPublisher() {
+        if (availabilityPublisher != null) {
+            return;
+        }
+        availabilityPublisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Availability-Publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        availabilityPublisher.scheduleWithFixedDelay(() -> {
+            for (AvailabilityFeed feed : availabilityFeeds.values()) {
+                try {
+                    feed.publish();
+                } catch (RuntimeException ex) {
+                    System.err.println("[BookingSystem] Availability publish failed: " + ex.getMessage());
+                }
+            }
+        }, AVAILABILITY_PUBLISH_MILLIS, AVAILABILITY_PUBLISH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Metrics
+    /**
+     * Live metrics of this instance: phase latency histograms, booking / failure /
+     * refund counters and the hottest seats. Values are read on each call.
+     */
+    public BookingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * One report of getMetrics() plus every event's contention (including its wait
+     * time per section), as text or as a single JSON object.
+     */
+    public String dumpMetrics(boolean json) {
+        Map<String, ContentionStats> events = new TreeMap<>();
+        for (EventShow event : eventsMap.values()) {
+            SeatInventory inventory = event.getInventory();
+            // Skip an event removeEvent is closing
+            if (inventory != null) {
+                events.put(event.getEventId(), inventory.contention());
+            }
+        }
+        return json ? metrics.toJson(events) : metrics.toText(events);
+    }
+
+    /**
+     * Hands dumpMetrics(json) to sink every periodMillis on a daemon thread, replacing
+     * any dump already running.
+     */
+    public synchronized void startMetricsDump(long periodMillis, Consumer<String> sink, boolean json) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Dump period must be positive");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("Metrics sink cannot be null");
+        }
+        stopMetricsDump();
+        metricsDumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Metrics-Dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        metricsDumper.scheduleAtFixedRate(() -> {
+            try {
+                sink.accept(dumpMetrics(json));
+            } catch (RuntimeException ex) {
+                System.err.println("[BookingSystem] Metrics dump failed: " + ex.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopMetricsDump() {
+        if (metricsDumper != null) {
+            metricsDumper.shutdownNow();
+            metricsDumper = null;
+        }
+    }
+
+    // Waiting room
+    /**
+     * Puts the event behind a waiting room: buyers join a FIFO line and are admitted at
+     * permitsPerSecond (up to burst at once), keeping the booking path near its
+     * saturation point instead of letting a launch-time stampede thrash it. While the
+     * room is open, bookings need the admission token from getWaitingRoomStatus.
+     */
+    public void openWaitingRoom(String eventId, double permitsPerSecond, int burst) {
+        getEventDetails(eventId);
+        admissionController.openRoom(eventId, permitsPerSecond, burst);
+    }
+
+    public void closeWaitingRoom(String eventId) {
+        admissionController.closeRoom(eventId);
+    }
+
+    /**
+     * @return session id to poll with getWaitingRoomStatus
+     */
+    public String joinWaitingRoom(String userId, String eventId) {
+        return admissionController.join(userId, eventId);
+    }
+
+    /**
+     * @return position and ETA while waiting; the admission token once admitted
+     */
+    public WaitStatus getWaitingRoomStatus(String sessionId) {
+        return admissionController.status(sessionId);
+    }
+
+    /**
+     * Regular booking: holds the seats, processes payment and books in one call.
+     */
+    public Ticket bookTicket(String userId,
+                             String eventId,
+                             List<String> seatIds) {
+        requireUngated(eventId);
+        return bookRouted(userId, eventId, seatIds);
+    }
+
+    /**
+     * bookTicket that is safe to retry. The first call with a given idempotency key
+     * books; any call with the same user and key (concurrent or up to
+     * IDEMPOTENCY_TTL_MILLIS after success) gets that same ticket back without
+     * touching the seats or the payment gateway again. After a failure that left
+     * nothing booked the key is free, so the client's next retry books afresh; if
+     * the booking was applied before the failure surfaced, the key keeps it and
+     * retries get the ticket.
+     *
+     * Like bookTicket(userId, eventId, seatIds), this rejects events behind a
+     * waiting room: those are booked with an admission token, which is single-use
+     * and already guards against a double booking.
+     *
+     * @throws IllegalArgumentException if the key was already used for other seats
+     */
+    public Ticket bookTicketIdempotent(String userId,
+                                       String eventId,
+                                       List<String> seatIds,
+                                       String idempotencyKey) {
+        IdempotencyCache.Claim<Ticket> claim = claimIdempotencyKey(userId, eventId, seatIds, idempotencyKey);
+        if (!claim.isOwner()) {
+            return awaitCommand(claim.future());
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Ticket ticket = bookTicket(userId, eventId, seatIds);
+            claim.complete(ticket);
+            return ticket;
+        } catch (RuntimeException | Error ex) {
+            // Duplicates waiting on the claim must not hang
+            settleFailedClaim(claim, ex, userId, eventId, seatIds, start);
+            throw ex;
+        }
+    }
+
+    /**
+     * bookTicketAsync with an idempotency key; duplicates get a future of the same
+     * booking (see bookTicketIdempotent).
+     */
+    public CompletableFuture<Ticket> bookTicketAsyncIdempotent(String userId,
+                                                               String eventId,
+                                                               List<String> seatIds,
+                                                               String idempotencyKey) {
+        IdempotencyCache.Claim<Ticket> claim;
+        try {
+            claim = claimIdempotencyKey(userId, eventId, seatIds, idempotencyKey);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        if (claim.isOwner()) {
+            long start = System.currentTimeMillis();
+            bookTicketAsync(userId, eventId, seatIds).whenComplete((ticket, ex) -> {
+                if (ex == null) {
+                    claim.complete(ticket);
+                } else {
+                    settleFailedClaim(claim, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex,
+                            userId, eventId, seatIds, start);
+                }
+            });
+        }
+        // A copy, so no caller can complete the shared future for the others
+        return claim.future().copy();
+    }
+
+    /**
+     * A booking can fail after it was applied (an Error, or anything thrown past the
+     * commit), so a failure alone doesn't free the key. If a ticket for exactly these
+     * seats was booked for the user since the attempt started, the key keeps it and
+     * retries get it; only a booking that left nothing behind frees the key.
+     */
+    private void settleFailedClaim(IdempotencyCache.Claim<Ticket> claim,
+                                   Throwable failure,
+                                   String userId,
+                                   String eventId,
+                                   List<String> seatIds,
+                                   long startMillis) {
+        Ticket applied = null;
+        try {
+            Set<String> requested = new HashSet<>(seatIds);
+            for (Ticket ticket : ticketIndex.forUser(userId, null)) {
+                if (ticket.getBookingTimestamp() >= startMillis && ticket.getEventId().equals(eventId)
+                        && seatIdsOf(ticket).equals(requested)) {
+                    applied = ticket;
+                    break;
+                }
+            }
+        } catch (RuntimeException ex) {
+            failure.addSuppressed(ex);
+        }
+        if (applied != null) {
+            claim.complete(applied);
+        } else {
+            claim.fail(failure);
+        }
+    }
+
+    private static Set<String> seatIdsOf(Ticket ticket) {
+        Set<String> seatIds = new HashSet<>();
+        for (Seat seat : ticket.getBookedSeats()) {
+            seatIds.add(seat.getSeatId());
+        }
+        return seatIds;
+    }
+
+    private IdempotencyCache.Claim<Ticket> claimIdempotencyKey(String userId,
+                                                               String eventId,
+                                                               List<String> seatIds,
+                                                               String idempotencyKey) {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            throw new IllegalArgumentException("Idempotency key cannot be null or empty");
+        }
+        if (seatIds == null || seatIds.isEmpty()) {
+            throw new IllegalArgumentException("Seat IDs list cannot be null or empty");
+        }
+        // Keys are per user: the length prefix keeps ("ab", "c") apart from ("a", "bc")
+        IdempotencyCache.Claim<Ticket> claim = idempotentBookings.claim(
+                userId.length() + ":" + userId + idempotencyKey,
+                Arrays.asList(eventId, new ArrayList<>(seatIds)));
+        if (!claim.isOwner()) {
+            metrics.recordDeduplicated();
+        }
+        return claim;
+    }
+
+    /**
+     * Booking for an event behind a waiting room. The token is spent only if the
+     * booking succeeds; after a failure it can be retried until it expires.
+     */
+    public Ticket bookTicket(String userId,
+                             String eventId,
+                             List<String> seatIds,
+                             String admissionToken) {
+        AdmissionController.Admission admission = admissionController.claim(admissionToken, userId, eventId);
+        try {
+            Ticket ticket = bookRouted(userId, eventId, seatIds);
+            admission.complete();
+            return ticket;
+        } catch (RuntimeException ex) {
+            admission.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Books count adjacent seats of the given type without the caller naming seats.
+     *
+     * The inventory bitmap is scanned front-to-back for up to BEST_AVAILABLE_SPREAD
+     * candidate blocks and one is picked at random, so concurrent buyers land on
+     * different blocks near the front instead of all racing for the first one.
+     * A lost CAS race simply rescans.
+     */
+    public Ticket bookBestAvailable(String userId,
+                                    String eventId,
+                                    int count,
+                                    SeatType seatType) {
+        requireUngated(eventId);
+        return allocateBestAvailable(userId, eventId, count, seatType);
+    }
+
+    /**
+     * bookBestAvailable for an event behind a waiting room; token rules as for bookTicket.
+     */
+    public Ticket bookBestAvailable(String userId,
+                                    String eventId,
+                                    int count,
+                                    SeatType seatType,
+                                    String admissionToken) {
+        AdmissionController.Admission admission = admissionController.claim(admissionToken, userId, eventId);
+        try {
+            Ticket ticket = allocateBestAvailable(userId, eventId, count, seatType);
+            admission.complete();
+            return ticket;
+        } catch (RuntimeException ex) {
+            admission.release();
+            throw ex;
+        }
+    }
+
+    private Ticket allocateBestAvailable(String userId,
+                                         String eventId,
+                                         int count,
+                                         SeatType seatType) {
+        // Input validation
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        if (eventId == null || eventId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Event ID cannot be null or empty");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Seat count must be positive");
+        }
+        if (seatType == null) {
+            throw new IllegalArgumentException("Seat type cannot be null");
+        }
+        SeatInventory inventory = inventoryOf(eventId);
+
+        for (int attempt = 0; attempt < BEST_AVAILABLE_MAX_ATTEMPTS; attempt++) {
+            int[] starts = inventory.findFreeRuns(seatType, count, BEST_AVAILABLE_SPREAD);
+            if (starts.length == 0) {
+                throw new RuntimeException("Booking failed: No block of " + count + " adjacent "
+                        + seatType + " seats available");
+            }
+            int start = starts[ThreadLocalRandom.current().nextInt(starts.length)];
+            int[] slots = new int[count];
+            List<Seat> seats = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                slots[i] = start + i;
+                seats.add(inventory.getLayout().seatAt(start + i));
+            }
+            long totalPrice = pricingEngine.quote(eventId, slots, null);
+            if (inventory.tryTransition(slots, SeatStatus.AVAILABLE, SeatStatus.SELECTED) < 0) {
+                return confirm(registerHold(userId, eventId, seats, slots, DEFAULT_HOLD_TTL_MILLIS, totalPrice));
+            }
+        }
+        throw new RuntimeException("Booking failed: Too much contention for " + seatType + " seats, retry");
+    }
+
+    /**
+     * Non-blocking booking: seats are held on the caller's thread (a few CASes), then
+     * payment and commit run on the payment executor. The future fails with the same
+     * "Booking failed" RuntimeException the synchronous API throws.
+     */
+    public CompletableFuture<Ticket> bookTicketAsync(String userId,
+                                                     String eventId,
+                                                     List<String> seatIds) {
+        SeatHold hold;
+        try {
+            requireUngated(eventId);
+            EventWriter<BookingCommand> writer = eventId == null ? null : eventWriters.get(eventId);
+            if (writer != null) {
+                BookingCommand command = BookingCommand.book(userId, seatIds);
+                if (writer.submit(command)) {
+                    return command.getHeld().thenCompose(this::confirmAsync);
+                }
+            }
+            hold = createHold(userId, eventId, seatIds, DEFAULT_HOLD_TTL_MILLIS, null);
+        } catch (IllegalStateException ex) {
+            return CompletableFuture.failedFuture(new RuntimeException("Booking failed: " + ex.getMessage(), ex));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return confirmAsync(hold);
+    }
+
+    /**
+     * Swap the payment provider, e.g. a FakePaymentGateway with realistic latency for load tests.
+     */
+    public void setPaymentGateway(PaymentGateway paymentGateway) {
+        if (paymentGateway == null) {
+            throw new IllegalArgumentException("Payment gateway cannot be null");
+        }
+        this.paymentGateway = paymentGateway;
+    }
+
+    /**
+     * Booking used for testing concurrency: reserves the seats and sleeps for holdMillis
+     * before paying. Competing bookings for the same seats fail fast instead of queueing.
+     */
+    public Ticket bookTicketWithHold(String userId,
+                                     String eventId,
+                                     List<String> seatIds,
+                                     long holdMillis) {
+        requireUngated(eventId);
+        return book(userId, eventId, seatIds, holdMillis);
+    }
+
+    // Through the event's writer in SINGLE_WRITER mode, else directly on this thread
+    private Ticket bookRouted(String userId, String eventId, List<String> seatIds) {
+        EventWriter<BookingCommand> writer = eventId == null ? null : eventWriters.get(eventId);
+        if (writer != null) {
+            BookingCommand command = BookingCommand.book(userId, seatIds);
+            if (writer.submit(command)) {
+                // The writer reserved the seats; pay and commit on this thread, it is waiting anyway
+                return confirm(awaitCommand(command.getHeld()));
+            }
+            // Writer shut down under us: the event is back in LOCK_FREE mode
+        }
+        return book(userId, eventId, seatIds, 0);
+    }
+
+    private static <T> T awaitCommand(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Writer thread only: applies a batch of commands for one event in order.
+     */
+    private void applyCommands(String eventId, List<BookingCommand> batch) {
+        for (BookingCommand command : batch) {
+            if (command.getType() == BookingCommand.Type.BOOK) {
+                try {
+                    command.getHeld().complete(createHold(command.getUserId(), eventId,
+                            command.getSeatIds(), DEFAULT_HOLD_TTL_MILLIS, null));
+                } catch (IllegalStateException ex) {
+                    command.getHeld().completeExceptionally(new RuntimeException("Booking failed: " + ex.getMessage(), ex));
+                } catch (RuntimeException ex) {
+                    command.getHeld().completeExceptionally(ex);
+                }
+            } else {
+                try {
+                    command.getCancelled().complete(applyCancel(command.getTicketId()));
+                } catch (RuntimeException ex) {
+                    command.getCancelled().completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    // Payment and commit on the payment executor, capped at MAX_IN_FLIGHT_PAYMENTS
+    private CompletableFuture<Ticket> confirmAsync(SeatHold hold) {
+        return CompletableFuture.supplyAsync(() -> {
+            paymentPermits.acquireUninterruptibly();
+            try {
+                return confirm(hold);
+            } finally {
+                paymentPermits.release();
+            }
+        }, paymentExecutor);
+    }
+
+    /**
+     * Group booking: seats in several events for one buyer, booked all together or not
+     * at all. Returns one receipt holding a ticket per event.
+     *
+     * ALGORITHM:
+     * 1. Resolve every event's seats to slots up front; any bad input fails before a seat moves
+     * 2. Reserve event by event in eventId order (slots sorted inside tryTransition), so
+     *    every group request takes seats in one global order; on the first conflict,
+     *    hand back everything reserved so far
+     * 3. Charge every ticket; if a charge fails, refund the ones already charged and
+     *    release all seats
+     * 4. Book all seats, then wait once for the journal: its records are written in
+     *    order, so the last one being durable covers the whole group
+     */
+    public GroupBooking bookGroup(String userId, Map<String, List<String>> seatsByEvent) {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        if (seatsByEvent == null || seatsByEvent.isEmpty()) {
+            throw new IllegalArgumentException("Group booking needs at least one event");
+        }
+        TreeMap<String, List<String>> ordered = new TreeMap<>(seatsByEvent);
+        List<SeatInventory> inventories = new ArrayList<>(ordered.size());
+        List<List<Seat>> seatLists = new ArrayList<>(ordered.size());
+        List<int[]> slotLists = new ArrayList<>(ordered.size());
+        List<Long> prices = new ArrayList<>(ordered.size());
+        for (Map.Entry<String, List<String>> entry : ordered.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                throw new IllegalArgumentException("Seat IDs list cannot be null or empty for event " + entry.getKey());
+            }
+            requireUngated(entry.getKey());
+            SeatInventory inventory = inventoryOf(entry.getKey());
+            List<Seat> seats = getSeatsFromVenue(inventory.getLayout(), entry.getValue());
+            inventories.add(inventory);
+            seatLists.add(seats);
+            int[] slots = slotsOf(inventory, seats);
+            slotLists.add(slots);
+            // Priced before any seat is taken, so the group's own seats don't add surge
+            prices.add(pricingEngine.quote(entry.getKey(), slots, null));
+        }
+
+        List<String> eventIds = new ArrayList<>(ordered.keySet());
+        for (int i = 0; i < eventIds.size(); i++) {
+            SeatInventory inventory = inventories.get(i);
+            int conflict = inventory.tryTransition(slotLists.get(i), SeatStatus.AVAILABLE, SeatStatus.SELECTED);
+            if (conflict >= 0) {
+                for (int j = i - 1; j >= 0; j--) {
+                    inventories.get(j).tryTransition(slotLists.get(j), SeatStatus.SELECTED, SeatStatus.AVAILABLE);
+                }
+                metrics.recordFailure();
+                throw new RuntimeException("Booking failed: Seat " + inventory.getLayout().seatAt(conflict).getSeatId()
+                        + " of event " + eventIds.get(i) + " is not available");
+            }
+        }
+
+        List<SeatHold> holds = new ArrayList<>(eventIds.size());
+        for (int i = 0; i < eventIds.size(); i++) {
+            SeatHold hold = registerHold(userId, eventIds.get(i), seatLists.get(i), slotLists.get(i),
+                    DEFAULT_HOLD_TTL_MILLIS, prices.get(i));
+            holds.add(hold);
+        }
+        return confirmGroup(userId, holds);
+    }
+
+    private GroupBooking confirmGroup(String userId, List<SeatHold> holds) {
+        long now = System.currentTimeMillis();
+        List<Ticket> tickets = new ArrayList<>(holds.size());
+        int charged = 0;
+        try {
+            for (SeatHold hold : holds) {
+                if (!hold.compareAndSetStatus(HoldStatus.ACTIVE, HoldStatus.CONFIRMING)) {
+                    throw new IllegalStateException("Hold is no longer active: " + hold.getStatus());
+                }
+                tickets.add(new Ticket(Ids.randomId(), userId, hold.getEventId(),
+                        hold.getSeats(), hold.getTotalPrice(), now));
+            }
+            for (Ticket ticket : tickets) {
+                long paymentStart = System.nanoTime();
+                paymentProcess(ticket);
+                metrics.recordPhase(BookingMetrics.Phase.PAYMENT, System.nanoTime() - paymentStart);
+                charged++;
+            }
+        } catch (Exception ex) {
+            metrics.recordFailure();
+            for (SeatHold hold : holds) {
+                if (hold.compareAndSetStatus(HoldStatus.CONFIRMING, HoldStatus.RELEASED)
+                        || hold.compareAndSetStatus(HoldStatus.ACTIVE, HoldStatus.RELEASED)) {
+                    releaseHeldSeats(hold);
+                    journalAsync(JournalRecord.holdEnded(hold.getHoldId()));
+                }
+                untrackHold(hold);
+            }
+            // Compensate: every ticket paid for so far is refunded
+            for (int i = 0; i < charged; i++) {
+                refundProcessor(tickets.get(i));
+            }
+            throw new RuntimeException("Booking failed: " + ex.getMessage(), ex);
+        }
+
+        long commitStart = System.nanoTime();
+        JournalRecord last = null;
+        for (int i = 0; i < holds.size(); i++) {
+            SeatHold hold = holds.get(i);
+            Ticket ticket = tickets.get(i);
+            // We own the SELECTED seats, so this cannot conflict
+            SeatInventory inventory = inventoryOf(hold.getEventId());
+            inventory.tryTransition(hold.getSlots(), SeatStatus.SELECTED, SeatStatus.BOOKED);
+            ticket = store(ticket, inventory, hold.getSlots());
+            tickets.set(i, ticket);
+            hold.compareAndSetStatus(HoldStatus.CONFIRMING, HoldStatus.CONFIRMED);
+            untrackHold(hold);
+            last = JournalRecord.booked(ticket.getTicketId(), hold.getHoldId(), userId, ticket.getEventId(),
+                    ticket.getTotalPrice(), ticket.getBookingTimestamp(), hold.getSlots());
+            if (i < holds.size() - 1) {
+                journalAsync(last);
+            }
+        }
+        if (!journalAndWait(last)) {
+            for (Ticket ticket : tickets) {
+                ticket.setDurable(false);
+            }
+        }
+        metrics.recordPhase(BookingMetrics.Phase.COMMIT, System.nanoTime() - commitStart);
+        for (int i = 0; i < tickets.size(); i++) {
+            metrics.recordBooking();
+        }
+        return new GroupBooking(Ids.randomId(), userId, tickets, now);
+    }
+
+    /**
+     * Booking that waits up to maxWaitMillis for seats on hold by other buyers instead
+     * of failing at once:
+     *   - a seat that is already booked fails immediately, before any seat is touched
+     *   - a held seat is retried with randomized exponential backoff (full jitter, so
+     *     waiting buyers don't retry in lockstep) until the deadline
+     *   - past the deadline the caller gets SeatContendedException ("contended, retry")
+     * Time spent waiting and the outcome are recorded in getContentionStats(eventId).
+     */
+    public Ticket bookTicketWithin(String userId,
+                                   String eventId,
+                                   List<String> seatIds,
+                                   long maxWaitMillis) {
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Max wait cannot be negative");
+        }
+        requireUngated(eventId);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        String contendedSeatId = null;
+        for (int attempt = 0; ; attempt++) {
+            SeatHold hold;
+            try {
+                hold = createHold(userId, eventId, seatIds, DEFAULT_HOLD_TTL_MILLIS, null);
+            } catch (IllegalStateException ex) {
+                throw new RuntimeException("Booking failed: " + ex.getMessage(), ex);
+            } catch (SeatContendedException ex) {
+                contendedSeatId = ex.getSeatId();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    recordWait(eventId, System.nanoTime() - start, true, contendedSeatId);
+                    throw ex;
+                }
+                long ceiling = Math.min(CONTENDED_BACKOFF_MAX_NANOS, CONTENDED_BACKOFF_BASE_NANOS << Math.min(attempt, 20));
+                LockSupport.parkNanos(Math.min(remaining, ThreadLocalRandom.current().nextLong(ceiling) + 1));
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for seats", ex);
+                }
+                continue;
+            }
+            if (attempt > 0) {
+                recordWait(eventId, System.nanoTime() - start, false, contendedSeatId);
+            }
+            return confirm(hold);
+        }
+    }
+
+    private void recordWait(String eventId, long waitedNanos, boolean timedOut, String seatId) {
+        inventoryOf(eventId).contention().recordWait(waitedNanos, timedOut, seatId);
+        metrics.recordPhase(BookingMetrics.Phase.CONTENDED_WAIT, waitedNanos);
+    }
+
+    public ContentionStats getContentionStats(String eventId) {
+        return inventoryOf(eventId).contention();
+    }
+
+    /**
+     * @return how often bookings ran into this seat while someone else held it
+     */
+    public int getSeatContention(String eventId, String seatId) {
+        SeatInventory inventory = inventoryOf(eventId);
+        int slot = inventory.getLayout().slotOf(seatId);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Seat not found in venue: " + seatId);
+        }
+        return inventory.contention().getContended(slot);
+    }
+
+    private Ticket book(String userId,
+                        String eventId,
+                        List<String> seatIds,
+                        long holdMillis) {
+        SeatHold hold;
+        try {
+            hold = createHold(userId, eventId, seatIds, DEFAULT_HOLD_TTL_MILLIS, null);
+        } catch (IllegalStateException ex) {
+            throw new RuntimeException("Booking failed: " + ex.getMessage(), ex);
+        }
+
+        if (holdMillis > 0) {
+            try {
+                Thread.sleep(holdMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                releaseHold(hold.getHoldId());
+                throw new RuntimeException("Interrupted while holding seats", ie);
+            }
+        }
+        return confirm(hold);
+    }
+
+    /**
+     * Phase 1 of a two-phase booking: moves the seats to SELECTED for ttlMillis.
+     * Nothing is locked while the buyer pays; the hold is reclaimed by the expiry
+     * sweeper if it is neither confirmed nor released in time.
+     *
+     * @return hold id to pass to confirmHold/releaseHold
+     */
+    public String holdSeats(String userId,
+                            String eventId,
+                            List<String> seatIds,
+                            long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Hold TTL must be positive");
+        }
+        return holdSeats(userId, eventId, seatIds, ttlMillis, null);
+    }
+
+    /**
+     * holdSeats with a promo code; the discounted fare is fixed when the hold is placed.
+     */
+    public String holdSeats(String userId,
+                            String eventId,
+                            List<String> seatIds,
+                            long ttlMillis,
+                            String promoCode) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Hold TTL must be positive");
+        }
+        requireUngated(eventId);
+        return createHold(userId, eventId, seatIds, ttlMillis, promoCode).getHoldId();
+    }
+
+    /**
+     * Phase 2: pays for a held set of seats and books them.
+     */
+    public Ticket confirmHold(String holdId) {
+        return confirm(getActiveHold(holdId));
+    }
+
+    /**
+     * Gives held seats back without booking them.
+     */
+    public void releaseHold(String holdId) {
+        SeatHold hold = getActiveHold(holdId);
+        if (!hold.compareAndSetStatus(HoldStatus.ACTIVE, HoldStatus.RELEASED)) {
+            throw new IllegalStateException("Hold is no longer active: " + hold.getStatus());
+        }
+        releaseHeldSeats(hold);
+        untrackHold(hold);
+        journalAsync(JournalRecord.holdEnded(holdId));
+    }
+
+    private SeatHold createHold(String userId,
+                                String eventId,
+                                List<String> seatIds,
+                                long ttlMillis,
+                                String promoCode) {
+        long start = System.nanoTime();
+        // Input validation
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        if (eventId == null || eventId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Event ID cannot be null or empty");
+        }
+        if (seatIds == null || seatIds.isEmpty()) {
+            throw new IllegalArgumentException("Seat IDs list cannot be null or empty");
+        }
+
+        // Validate event exists
+        EventShow event = eventsMap.get(eventId);
+        if (event == null) {
+            throw new IllegalArgumentException("Event not found: " + eventId);
+        }
+        SeatInventory inventory = inventoryOf(event);
+
+        // Get actual seat objects from the layout the event's inventory was built for
+        List<Seat> seats = getSeatsFromVenue(inventory.getLayout(), seatIds);
+        if (seats.size() != seatIds.size()) {
+            throw new IllegalArgumentException("Some seats not found in venue");
+        }
+        int[] slots = slotsOf(inventory, seats);
+        // Price (and reject a bad code) before any seat is touched: quoted after the
+        // CAS, the buyer's own seats would count toward surge, and a failing quote
+        // would strand them SELECTED
+        long totalPrice = pricingEngine.quote(eventId, slots, promoCode);
+
+        // Demand counts whether or not the seats are still free
+        for (int slot : slots) {
+            metrics.recordSeatRequest(eventId, inventory.getLayout(), slot);
+        }
+
+        // A booked seat won't come back: fail before touching any seat
+        for (int slot : slots) {
+            SeatStatus status = inventory.getStatus(slot);
+            if (status == SeatStatus.BOOKED || status == SeatStatus.UNDER_MAINTENANCE) {
+                inventory.contention().recordFastFail();
+                metrics.recordFailure();
+                throw new IllegalStateException("Seat " + inventory.getLayout().seatAt(slot).getSeatId()
+                        + " is not available");
+            }
+        }
+
+        long acquireStart = System.nanoTime();
+        metrics.recordPhase(BookingMetrics.Phase.VALIDATE, acquireStart - start);
+
+        // All-or-nothing AVAILABLE -> SELECTED; nothing to roll back if this fails
+        int conflict = inventory.tryTransition(slots, SeatStatus.AVAILABLE, SeatStatus.SELECTED);
+        metrics.recordPhase(BookingMetrics.Phase.ACQUIRE, System.nanoTime() - acquireStart);
+        if (conflict >= 0) {
+            metrics.recordFailure();
+            String seatId = inventory.getLayout().seatAt(conflict).getSeatId();
+            SeatStatus status = inventory.getStatus(conflict);
+            if (status == SeatStatus.BOOKED || status == SeatStatus.UNDER_MAINTENANCE) {
+                throw new IllegalStateException("Seat " + seatId + " is not available");
+            }
+            // Held by someone else (or just freed): may clear up, so tell the caller to retry
+            inventory.contention().recordContended(conflict);
+            metrics.recordContended();
+            throw new SeatContendedException(eventId, seatId,
+                    "Booking failed: Seat " + seatId + " is on hold by another buyer, retry");
+        }
+
+        return registerHold(userId, eventId, seats, slots, ttlMillis, totalPrice);
+    }
+
+    // Seats must already be SELECTED on behalf of this hold, priced before they were taken
+    private SeatHold registerHold(String userId,
+                                  String eventId,
+                                  List<Seat> seats,
+                                  int[] slots,
+                                  long ttlMillis,
+                                  long totalPrice) {
+        SeatHold hold = new SeatHold(Ids.randomId(),
+                userId,
+                eventId,
+                seats,
+                slots,
+                totalPrice,
+                System.currentTimeMillis() + ttlMillis);
+        trackHold(hold);
+        journalAsync(JournalRecord.holdPlaced(hold.getHoldId(), userId, eventId,
+                hold.getTotalPrice(), hold.getExpiresAt(), slots));
+        return hold;
+    }
+
+    private void trackHold(SeatHold hold) {
+        holdsMap.put(hold.getHoldId(), hold);
+        // Expiry is a no-op for holds that were confirmed or released first
+        hold.setExpiry(holdExpiryWheel.schedule(() -> expireHold(hold), hold.getExpiresAt() - System.currentTimeMillis()));
+    }
+
+    // Every way a hold ends comes through here, so no timer outlives its hold
+    private void untrackHold(SeatHold hold) {
+        holdsMap.remove(hold.getHoldId());
+        hold.cancelExpiry();
+    }
+
+    private Ticket confirm(SeatHold hold) {
+        if (System.currentTimeMillis() > hold.getExpiresAt()) {
+            // The sweeper may be up to a tick behind; don't let a late confirm through
+            expireHold(hold);
+        }
+        if (!hold.compareAndSetStatus(HoldStatus.ACTIVE, HoldStatus.CONFIRMING)) {
+            throw new IllegalStateException("Hold is no longer active: " + hold.getStatus());
+        }
+
+        Ticket ticket = new Ticket(Ids.randomId(),
+                hold.getUserId(),
+                hold.getEventId(),
+                hold.getSeats(),
+                hold.getTotalPrice(),
+                System.currentTimeMillis());
+        boolean charged = false;
+        long commitStart = 0;
+        try {
+            SeatInventory inventory = inventoryOf(hold.getEventId());
+            long paymentStart = System.nanoTime();
+            paymentProcess(ticket);
+            charged = true;
+            commitStart = System.nanoTime();
+            metrics.recordPhase(BookingMetrics.Phase.PAYMENT, commitStart - paymentStart);
+            // We own the SELECTED seats, so this cannot conflict
+            inventory.tryTransition(hold.getSlots(), SeatStatus.SELECTED, SeatStatus.BOOKED);
+            ticket = store(ticket, inventory, hold.getSlots());
+            hold.compareAndSetStatus(HoldStatus.CONFIRMING, HoldStatus.CONFIRMED);
+        } catch (Exception ex) {
+            metrics.recordFailure();
+            hold.compareAndSetStatus(HoldStatus.CONFIRMING, HoldStatus.RELEASED);
+            releaseHeldSeats(hold);
+            journalAsync(JournalRecord.holdEnded(hold.getHoldId()));
+            // Compensate: money was taken but the booking could not be committed
+            if (charged) {
+                refundProcessor(ticket);
+            }
+            // propagate failure to caller
+            throw new RuntimeException("Booking failed: " + ex.getMessage(), ex);
+        } finally {
+            untrackHold(hold);
+        }
+        // Acknowledge only once the journal write settled (shares an fsync with concurrent bookings).
+        // The booking is committed and paid either way: a failed write flags it, it doesn't undo it
+        if (!journalAndWait(JournalRecord.booked(ticket.getTicketId(), hold.getHoldId(), ticket.getUserId(),
+                ticket.getEventId(), ticket.getTotalPrice(), ticket.getBookingTimestamp(), hold.getSlots()))) {
+            ticket.setDurable(false);
+        }
+        metrics.recordPhase(BookingMetrics.Phase.COMMIT, System.nanoTime() - commitStart);
+        metrics.recordBooking();
+        return ticket;
+    }
+
+    // Moves a paid, BOOKED-in-inventory ticket into the store; the returned view replaces it
+    private Ticket store(Ticket pending, SeatInventory inventory, int[] slots) {
+        Ticket ticket = ticketStore.add(pending.getTicketId(), pending.getUserId(), pending.getEventId(),
+                inventory.getLayout(), slots, pending.getTotalPrice(), pending.getBookingTimestamp(),
+                TicketStatus.BOOKED);
+        ticketIndex.add(ticket);
+        return ticket;
+    }
+
+    private void expireHold(SeatHold hold) {
+        if (hold.compareAndSetStatus(HoldStatus.ACTIVE, HoldStatus.EXPIRED)) {
+            releaseHeldSeats(hold);
+            untrackHold(hold);
+            journalAsync(JournalRecord.holdEnded(hold.getHoldId()));
+        }
+    }
+
+    private void releaseHeldSeats(SeatHold hold) {
+        EventShow event = eventsMap.get(hold.getEventId());
+        SeatInventory inventory = event == null ? null : event.getInventory();
+        if (inventory != null) {
+            inventory.tryTransition(hold.getSlots(), SeatStatus.SELECTED, SeatStatus.AVAILABLE);
+        }
+    }
+
+    private SeatHold getActiveHold(String holdId) {
+        if (holdId == null || holdId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Hold ID cannot be null or empty");
+        }
+        SeatHold hold = holdsMap.get(holdId);
+        if (hold == null) {
+            throw new IllegalArgumentException("No Such Hold Found: " + holdId);
+        }
+        return hold;
+    }
+
+    private void requireUngated(String eventId) {
+        if (eventId != null && admissionController.isGated(eventId)) {
+            throw new IllegalArgumentException("Event " + eventId + " has a waiting room; book with an admission token");
+        }
+    }
+
+    private SeatInventory inventoryOf(String eventId) {
+        EventShow event = eventsMap.get(eventId);
+        if (event == null) {
+            throw new IllegalArgumentException("Event not found: " + eventId);
+        }
+        return inventoryOf(event);
+    }
+
+    // removeEvent closes the inventory, so a request that looked the event up just
+    // before sees it as gone rather than reading a null inventory
+    private static SeatInventory inventoryOf(EventShow event) {
+        SeatInventory inventory = event.getInventory();
+        if (inventory == null) {
+            throw new IllegalArgumentException("Event not found: " + event.getEventId());
+        }
+        return inventory;
+    }
+
+    private static int[] slotsOf(SeatInventory inventory, List<Seat> seats) {
+        int[] slots = new int[seats.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = inventory.getLayout().slotOf(seats.get(i).getSeatId());
+        }
+        return slots;
+    }
+
+    /**
+     * All tickets booked by the user, optionally filtered by status (null = any).
+     */
+    public List<Ticket> getTicketsForUser(String userId, TicketStatus status) {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        return ticketIndex.forUser(userId, status);
+    }
+
+    /**
+     * All tickets for the event, optionally filtered by status (null = any).
+     */
+    public List<Ticket> getTicketsForEvent(String eventId, TicketStatus status) {
+        if (eventId == null || eventId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Event ID cannot be null or empty");
+        }
+        return ticketIndex.forEvent(eventId, status);
     }
 
-    public static BookingSystem getInstance() {
-        return INSTANCE;
+    /**
+     * cancelTicket for callers that route by event (ShardRouter): the ticket must
+     * belong to eventId, or it is reported as not found.
+     */
+    public void cancelTicket(String eventId, String ticketId) {
+        Ticket existing = ticketId == null ? null : ticketStore.get(ticketId);
+        if (existing == null || !existing.getEventId().equals(eventId)) {
+            throw new IllegalArgumentException("No Such Ticket Found: " + ticketId);
+        }
+        cancelTicket(ticketId);
     }
 
-    // Admin operations
-    public void addEvent(EventShow eventShow) {
-        eventsMap.put(eventShow.getEventId(), eventShow);
+    public void cancelTicket(String ticketId) {
+        Ticket existing = ticketStore.get(ticketId);
+        EventWriter<BookingCommand> writer = existing == null ? null : eventWriters.get(existing.getEventId());
+        if (writer != null) {
+            BookingCommand command = BookingCommand.cancel(ticketId);
+            if (!writer.submit(command)) {
+                applyCancel(ticketId);
+            } else {
+                awaitCommand(command.getCancelled());
+            }
+        } else {
+            applyCancel(ticketId);
+        }
+        journalAndWait(JournalRecord.cancelled(ticketId));
     }
 
-    public void removeEvent(EventShow eventShow) {
-        eventsMap.remove(eventShow.getEventId());
-    }
+    // Cancels in memory; the caller journals the cancellation
+    private Ticket applyCancel(String ticketId) {
+        if (ticketId == null || ticketId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Ticket ID cannot be null or empty");
+        }
+        
+        Ticket ticket = ticketStore.get(ticketId);
+        if (ticket == null) {
+            throw new IllegalArgumentException("No Such Ticket Found: " + ticketId);
+        }
+        
+        // Validate ticket can be cancelled
+        if (ticket.getTicketStatus() == TicketStatus.CANCELLED) {
+            throw new IllegalStateException("Ticket is already cancelled");
+        }
+        
+        if (ticket.getTicketStatus() != TicketStatus.BOOKED) {
+            throw new IllegalStateException("Only booked tickets can be cancelled");
+        }
+        
+        SeatInventory inventory = inventoryOf(ticket.getEventId());
 
-    public EventShow getEventDetails(String eventId) {
-        if (!eventsMap.containsKey(eventId)) {
-            throw new IllegalArgumentException("No Such Event Found");
+        // Exactly one of several concurrent cancels wins the ticket, so seats are released once
+        if (!ticket.compareAndSetStatus(TicketStatus.BOOKED, TicketStatus.CANCELLED)) {
+            throw new IllegalStateException("Ticket is already cancelled");
         }
-        return eventsMap.get(eventId);
+        releaseSeats(ticket, inventory);
+        ticketIndex.statusChanged(ticket, TicketStatus.BOOKED);
+        metrics.recordCancellation();
+        return ticket;
     }
 
     /**
-     * Regular booking: acquires locks, checks availability, processes payment and books.
+     * Frees the seats of a ticket whose BOOKED -> CANCELLED CAS this thread won, one
+     * seat at a time. Not all-or-nothing: a rollback after a conflict would take back
+     * seats already published as AVAILABLE, possibly from a buyer who grabbed one in
+     * between. A seat that is no longer BOOKED isn't the ticket's to free and is left
+     * as it is (counted in the unreleasedSeats metric); the ticket stays cancelled either way.
      */
-    public Ticket bookTicket(String userId,
-                             String eventId,
-                             List<String> seatIds) {
-        // Input validation
-        if (userId == null || userId.trim().isEmpty()) {
-            throw new IllegalArgumentException("User ID cannot be null or empty");
+    private void releaseSeats(Ticket ticket, SeatInventory inventory) {
+        for (int slot : ticket.getSlots()) {
+            if (!inventory.compareAndSet(slot, SeatStatus.BOOKED, SeatStatus.AVAILABLE)) {
+                metrics.recordUnreleasedSeat();
+            }
         }
-        if (eventId == null || eventId.trim().isEmpty()) {
-            throw new IllegalArgumentException("Event ID cannot be null or empty");
+    }
+
+    // Bulk cancellation
+    /**
+     * Cancels and refunds many tickets at once; the per-ticket checks are the same as
+     * cancelTicket's, and a ticket that fails them is reported, not thrown.
+     *
+     * ALGORITHM:
+     * 1. Group the tickets by event
+     * 2. SINGLE_WRITER events: queue every cancel on the writer, which applies them in
+     *    batches, then collect the results
+     *    LOCK_FREE events: win each ticket with a BOOKED -> CANCELLED status CAS, then
+     *    free its seats (releaseSeats)
+     * 3. Journal every cancellation, waiting once on the last record
+     * 4. Refund in parallel on the payment executor (see refundAll)
+     */
+    public CancellationReport cancelTickets(Collection<String> ticketIds) {
+        if (ticketIds == null) {
+            throw new IllegalArgumentException("Ticket IDs cannot be null");
         }
-        if (seatIds == null || seatIds.isEmpty()) {
-            throw new IllegalArgumentException("Seat IDs list cannot be null or empty");
+        long start = System.currentTimeMillis();
+        Map<String, String> failures = new LinkedHashMap<>();
+        Map<String, List<Ticket>> byEvent = new LinkedHashMap<>();
+        for (String ticketId : new LinkedHashSet<>(ticketIds)) {
+            Ticket ticket = ticketId == null ? null : ticketStore.get(ticketId);
+            if (ticket == null) {
+                failures.put(String.valueOf(ticketId), "No Such Ticket Found");
+                continue;
+            }
+            byEvent.computeIfAbsent(ticket.getEventId(), _ -> new ArrayList<>()).add(ticket);
         }
 
-        // Validate event exists
-        EventShow event = eventsMap.get(eventId);
-        if (event == null) {
-            throw new IllegalArgumentException("Event not found: " + eventId);
+        List<Ticket> cancelled = new ArrayList<>();
+        for (Map.Entry<String, List<Ticket>> entry : byEvent.entrySet()) {
+            EventWriter<BookingCommand> writer = eventWriters.get(entry.getKey());
+            if (writer != null) {
+                cancelThroughWriter(writer, entry.getValue(), cancelled, failures);
+            } else {
+                cancelLockFree(entry.getKey(), entry.getValue(), cancelled, failures);
+            }
         }
+        journalCancellations(cancelled);
+        List<String> refundFailures = refundAll(cancelled);
+        return new CancellationReport(cancelled.size(), failures, cancelled.size() - refundFailures.size(),
+                refundFailures, System.currentTimeMillis() - start);
+    }
 
-        // Get actual seat objects from event's venue
-        List<Seat> seats = getSeatsFromVenue(event.getVenue(), seatIds);
-        if (seats.size() != seatIds.size()) {
-            throw new IllegalArgumentException("Some seats not found in venue");
+    /**
+     * Cancels a show: cancels every booked ticket, takes the event off sale and frees
+     * its per-event state (as removeEvent does), then refunds. The tickets stay
+     * queryable as CANCELLED, across restarts too.
+     *
+     * Tickets are cancelled while the event is still registered, so a cancelTicket
+     * racing this one can still reach the inventory. Their seats are not released one
+     * by one: they stay BOOKED, so nothing is resold before the event is removed. The
+     * in-memory inventory goes with the event; a mapped seat file (setSeatStoreDirectory)
+     * would outlive it, so it is deleted, and re-adding the event starts with every seat
+     * AVAILABLE. A booking that was already committing when the event was removed may
+     * still store its ticket, so booked tickets are swept again until a pass cancels none.
+     */
+    public CancellationReport cancelEvent(String eventId) {
+        long start = System.currentTimeMillis();
+        EventShow event = getEventDetails(eventId);
+        List<Ticket> cancelled = new ArrayList<>(cancelBookedOf(eventId));
+        removeEvent(event);
+        List<Ticket> pass;
+        while (!(pass = cancelBookedOf(eventId)).isEmpty()) {
+            cancelled.addAll(pass);
         }
+        deleteSeatFile(eventId);
 
-        List<ReentrantLock> allocatedSeatLocks = new ArrayList<>();
-        String ticketId = UUID.randomUUID().toString();
-        long totalPrice = calculateTicketFare(seats);
-        Ticket ticket = new Ticket(ticketId,
-                userId,
-                eventId,
-                seats,
-                totalPrice,
-                System.currentTimeMillis());
-
-        try {
-            allocatedSeatLocks = acquireLockOnSeats(eventId, seats);
+        List<String> refundFailures = refundAll(cancelled);
+        return new CancellationReport(cancelled.size(), new LinkedHashMap<>(), cancelled.size() - refundFailures.size(),
+                refundFailures, System.currentTimeMillis() - start);
+    }
 
-            // Check availability once we hold locks
-            for (Seat seat : seats) {
-                if (seat.getSeatStatus() != SeatStatus.AVAILABLE) {
-                    throw new IllegalStateException("Seat " + seat.getSeatId() + " is not available");
-                }
+    private void cancelThroughWriter(EventWriter<BookingCommand> writer,
+                                     List<Ticket> tickets,
+                                     List<Ticket> cancelled,
+                                     Map<String, String> failures) {
+        List<CompletableFuture<Ticket>> results = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            BookingCommand command = BookingCommand.cancel(ticket.getTicketId());
+            if (writer.submit(command)) {
+                results.add(command.getCancelled());
+                continue;
             }
-
-            paymentProcess(ticket);
-            for (Seat seat : seats) {
-                seat.setSeatStatus(SeatStatus.BOOKED);
+            // Writer shut down under us: the event is back in LOCK_FREE mode
+            try {
+                results.add(CompletableFuture.completedFuture(applyCancel(ticket.getTicketId())));
+            } catch (RuntimeException ex) {
+                results.add(CompletableFuture.failedFuture(ex));
             }
-            ticket.setTicketStatus(TicketStatus.BOOKED);
-            ticketsMap.put(ticketId, ticket);
-        } catch (Exception ex) {
-            if (ex instanceof PaymentProcessingException) {
-                refundProcessor(ticket);
+        }
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                cancelled.add(awaitCommand(results.get(i)));
+            } catch (RuntimeException ex) {
+                failures.put(tickets.get(i).getTicketId(), ex.getMessage());
             }
-            // propagate failure to caller
-            throw new RuntimeException("Booking failed: " + ex.getMessage(), ex);
-        } finally {
-            releaseSeatLocks(allocatedSeatLocks);
         }
-        return ticket;
     }
 
     /**
-     * Booking used for testing concurrency: acquires locks and sleeps (holds locks) for holdMillis
-     * before proceeding. This simulates a long-running booking while holding seat locks.
+     * Cancels, and journals, every ticket of the event indexed as BOOKED; seats are left
+     * as they are. A ticket whose CAS is lost belongs to a cancelTicket in progress,
+     * which finishes it, so it doesn't count toward this pass.
      */
-    public Ticket bookTicketWithHold(String userId,
-                                     String eventId,
-                                     List<String> seatIds,
-                                     long holdMillis) {
-        // Input validation
-        if (userId == null || userId.trim().isEmpty()) {
-            throw new IllegalArgumentException("User ID cannot be null or empty");
+    private List<Ticket> cancelBookedOf(String eventId) {
+        List<Ticket> pass = new ArrayList<>();
+        for (Ticket ticket : ticketIndex.forEvent(eventId, TicketStatus.BOOKED)) {
+            if (ticket.compareAndSetStatus(TicketStatus.BOOKED, TicketStatus.CANCELLED)) {
+                ticketIndex.statusChanged(ticket, TicketStatus.BOOKED);
+                metrics.recordCancellation();
+                pass.add(ticket);
+            }
         }
-        if (eventId == null || eventId.trim().isEmpty()) {
-            throw new IllegalArgumentException("Event ID cannot be null or empty");
+        journalCancellations(pass);
+        return pass;
+    }
+
+    private void cancelLockFree(String eventId,
+                                List<Ticket> tickets,
+                                List<Ticket> cancelled,
+                                Map<String, String> failures) {
+        EventShow event = eventsMap.get(eventId);
+        SeatInventory inventory = event == null ? null : event.getInventory();
+        if (inventory == null) {
+            for (Ticket ticket : tickets) {
+                failures.put(ticket.getTicketId(), "Event not found: " + eventId);
+            }
+            return;
         }
-        if (seatIds == null || seatIds.isEmpty()) {
-            throw new IllegalArgumentException("Seat IDs list cannot be null or empty");
+        for (Ticket ticket : tickets) {
+            // Exactly one of several concurrent cancels wins the ticket, as in applyCancel
+            if (!ticket.compareAndSetStatus(TicketStatus.BOOKED, TicketStatus.CANCELLED)) {
+                failures.put(ticket.getTicketId(), ticket.getTicketStatus() == TicketStatus.CANCELLED
+                        ? "Ticket is already cancelled" : "Only booked tickets can be cancelled");
+                continue;
+            }
+            releaseSeats(ticket, inventory);
+            ticketIndex.statusChanged(ticket, TicketStatus.BOOKED);
+            metrics.recordCancellation();
+            cancelled.add(ticket);
         }
+    }
 
-        // Validate event exists
-        EventShow event = eventsMap.get(eventId);
-        if (event == null) {
-            throw new IllegalArgumentException("Event not found: " + eventId);
+    // Records are written in order, so the last one being durable covers them all
+    private void journalCancellations(List<Ticket> tickets) {
+        for (int i = 0; i < tickets.size() - 1; i++) {
+            journalAsync(JournalRecord.cancelled(tickets.get(i).getTicketId()));
         }
+        if (!tickets.isEmpty()) {
+            journalAndWait(JournalRecord.cancelled(tickets.get(tickets.size() - 1).getTicketId()));
+        }
+    }
 
-        // Get actual seat objects from event's venue
-        List<Seat> seats = getSeatsFromVenue(event.getVenue(), seatIds);
-        if (seats.size() != seatIds.size()) {
-            throw new IllegalArgumentException("Some seats not found in venue");
+    /**
+     * Refunds every ticket through refundProcessor, one virtual thread each on the
+     * payment executor. The submitting thread takes a payment permit per refund, so
+     * at most MAX_IN_FLIGHT_PAYMENTS gateway calls (bookings included) run at once.
+     *
+     * @return ids of the tickets whose refund failed
+     */
+    private List<String> refundAll(List<Ticket> tickets) {
+        List<CompletableFuture<Void>> refunds = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            paymentPermits.acquireUninterruptibly();
+            refunds.add(CompletableFuture.runAsync(() -> {
+                try {
+                    refundProcessor(ticket);
+                } finally {
+                    paymentPermits.release();
+                }
+            }, paymentExecutor));
         }
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < refunds.size(); i++) {
+            try {
+                refunds.get(i).join();
+            } catch (CompletionException ex) {
+                failed.add(tickets.get(i).getTicketId());
+                System.err.println("[BookingSystem] Refund failed for ticket " + tickets.get(i).getTicketId()
+                        + ": " + ex.getCause().getMessage());
+            }
+        }
+        return failed;
+    }
 
-        List<ReentrantLock> allocatedSeatLocks = new ArrayList<>();
-        String ticketId = UUID.randomUUID().toString();
-        long totalPrice = calculateTicketFare(seats);
-        Ticket ticket = new Ticket(ticketId,
-                userId,
-                eventId,
-                seats,
-                totalPrice,
-                System.currentTimeMillis());
+    // Durability
 
-        try {
-            allocatedSeatLocks = acquireLockOnSeats(eventId, seats);
+    /**
+     * Turns on the booking journal in directory. State is first recovered from the
+     * newest snapshot plus the log tail, then every booking, cancellation and hold is
+     * journaled and a snapshot is taken every snapshotIntervalMillis. Bookings are
+     * acknowledged once their record is on disk; if that write fails, the committed
+     * booking is still returned, with Ticket.isDurable() false until the next checkpoint.
+     *
+     * Events must already be added with the same venue layouts they had when the
+     * journal was written, because records refer to seats by slot.
+     */
+    public synchronized RecoveryStats enableJournal(Path directory, long snapshotIntervalMillis) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Journal already enabled");
+        }
+        if (snapshotIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        Files.createDirectories(directory);
+        RecoveryStats stats = recover(directory);
 
-            // Informative print: locks have been acquired
-            System.out.println("[BookingSystem] User=" + userId + " acquired locks on seats: " + seatIdsList(seats) + " - holding for " + holdMillis + "ms");
+        int nextSegment = Math.max(1, stats.getSnapshot());
+        List<Integer> segments = BookingJournal.listSegments(directory);
+        if (!segments.isEmpty()) {
+            // Never append to a segment that may end in a repaired tail
+            nextSegment = Math.max(nextSegment, segments.get(segments.size() - 1) + 1);
+        }
+        journalDirectory = directory;
+        journal = new BookingJournal(directory, nextSegment);
 
-            // Hold the locks intentionally to simulate a long operation
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BookingJournal-Snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
             try {
-                Thread.sleep(holdMillis);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Interrupted while holding locks", ie);
+                checkpoint();
+            } catch (RuntimeException ex) {
+                System.err.println("[BookingSystem] Snapshot failed: " + ex.getMessage());
             }
+        }, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        return stats;
+    }
 
-            // After holding, check availability
-            for (Seat seat : seats) {
-                if (seat.getSeatStatus() != SeatStatus.AVAILABLE) {
-                    throw new IllegalStateException("Seat " + seat.getSeatId() + " is not available");
-                }
+    /**
+     * Writes a compact snapshot and deletes the log segments it supersedes.
+     *
+     * The journal is rotated first, then live state is scanned. State changes are
+     * applied before they are journaled, so anything in the old segments is already
+     * visible to the scan; changes that race the scan land in the new segment and are
+     * replayed on top. Replay is idempotent, so seeing a change twice is harmless.
+     */
+    public void checkpoint() {
+        BookingJournal current = journal;
+        if (current == null) {
+            throw new IllegalStateException("Journal not enabled");
+        }
+        synchronized (checkpointLock) {
+            int segment = current.rotate().join();
+            // Tickets whose journal write failed become durable once the snapshot holding them is
+            List<Ticket> notDurable = new ArrayList<>();
+            Iterable<JournalRecord> records = () -> Stream.concat(
+                    ticketStore.stream()
+                            .peek(ticket -> {
+                                if (!ticket.isDurable()) {
+                                    notDurable.add(ticket);
+                                }
+                            })
+                            .flatMap(this::snapshotRecords),
+                    holdsMap.values().stream()
+                            .filter(hold -> hold.getStatus() == HoldStatus.ACTIVE)
+                            .map(hold -> JournalRecord.holdPlaced(hold.getHoldId(), hold.getUserId(),
+                                    hold.getEventId(), hold.getTotalPrice(), hold.getExpiresAt(), hold.getSlots())))
+                    .iterator();
+            try {
+                BookingJournal.writeSnapshot(journalDirectory, segment, records);
+                BookingJournal.deleteBefore(journalDirectory, segment);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Snapshot failed", ex);
             }
-
-            paymentProcess(ticket);
-            for (Seat seat : seats) {
-                seat.setSeatStatus(SeatStatus.BOOKED);
+            for (Ticket ticket : notDurable) {
+                ticket.setDurable(true);
             }
-            ticket.setTicketStatus(TicketStatus.BOOKED);
-            ticketsMap.put(ticketId, ticket);
-        } catch (Exception ex) {
-            if (ex instanceof PaymentProcessingException) {
-                refundProcessor(ticket);
+        }
+    }
+
+    /**
+     * Hands an event over to another instance (shard rebalancing): drops the event, its
+     * tickets and its holds here and returns the tickets as journal records for
+     * attachEvent on the new owner. The caller must have stopped routing requests for
+     * the event to this instance first. A DETACHED record tells this instance's journal
+     * that the tickets are gone, so a restart doesn't bring them back.
+     */
+    public List<JournalRecord> detachEvent(String eventId) {
+        EventShow event = eventsMap.get(eventId);
+        if (event == null) {
+            throw new IllegalArgumentException("Event not found: " + eventId);
+        }
+        releaseEventHolds(eventId);
+        List<JournalRecord> records = new ArrayList<>();
+        // Booking order, not status-bucket order: a seat cancelled and rebooked must
+        // replay as booked, cancelled, booked again
+        List<Ticket> tickets = new ArrayList<>(ticketIndex.removeEvent(eventId));
+        tickets.sort(TicketStore.ROW_ORDER);
+        // Removed rows lose their seats; keep a checkpoint from scanning them mid-removal
+        synchronized (checkpointLock) {
+            for (Ticket ticket : tickets) {
+                snapshotRecords(ticket).forEach(records::add);
+                ticketStore.remove(ticket.getTicketId());
             }
-            throw new RuntimeException("Booking failed: " + ex.getMessage(), ex);
-        } finally {
-            releaseSeatLocks(allocatedSeatLocks);
         }
-        return ticket;
+        journalAsync(JournalRecord.detached(eventId));
+        removeEvent(event);
+        return records;
     }
 
-    private List<ReentrantLock> acquireLockOnSeats(String eventId,
-                                                   List<Seat> seats) {
-        List<ReentrantLock> locks = new ArrayList<>();
-        
-        // Sort seats by seatId to ensure consistent lock ordering and prevent deadlocks
-        List<Seat> sortedSeats = new ArrayList<>(seats);
-        sortedSeats.sort(Comparator.comparing(Seat::getSeatId));
-        
-        try {
-            for (Seat seat : sortedSeats) {
-                ReentrantLock lock = seatLocks.computeIfAbsent(eventId,
-                                _ -> new ConcurrentHashMap<>())
-                        .computeIfAbsent(seat.getSeatId(),
-                                _ -> new ReentrantLock());
-                locks.add(lock);
-                lock.lockInterruptibly();
-            }
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            // release any locks we acquired before failure
-            releaseSeatLocks(locks);
-            throw new IllegalArgumentException("Unable to acquire lock: interrupted", ex);
-        } catch (Exception ex) {
-            // release any locks we acquired before failure
-            releaseSeatLocks(locks);
-            throw new IllegalArgumentException("Unable to acquire lock", ex);
+    /**
+     * Adds an event handed over by detachEvent and replays its tickets. The show must
+     * use the same seat layout as on the previous owner, since records refer to slots.
+     */
+    public void attachEvent(EventShow eventShow, List<JournalRecord> records) {
+        addEvent(eventShow);
+        ReplayState state = new ReplayState();
+        for (JournalRecord record : records) {
+            if (replay(record, state)) {
+                journalAsync(record);
+            }
         }
+    }
 
-        return locks;
+    // Tickets of removed (e.g. cancelled) events are kept too; replay restores them as CANCELLED
+    private Stream<JournalRecord> snapshotRecords(Ticket ticket) {
+        JournalRecord booked = JournalRecord.booked(ticket.getTicketId(), null, ticket.getUserId(),
+                ticket.getEventId(), ticket.getTotalPrice(), ticket.getBookingTimestamp(), ticket.getSlots());
+        if (ticket.getTicketStatus() == TicketStatus.CANCELLED) {
+            return Stream.of(booked, JournalRecord.cancelled(ticket.getTicketId()));
+        }
+        return Stream.of(booked);
     }
 
-    private void releaseSeatLocks(List<ReentrantLock> allocatedSeatLocks) {
-        if (allocatedSeatLocks == null || allocatedSeatLocks.isEmpty()) {
-            return;
+    private RecoveryStats recover(Path directory) throws IOException {
+        long start = System.nanoTime();
+        int snapshot = BookingJournal.latestSnapshot(directory);
+        ReplayState state = new ReplayState();
+        long[] counts = new long[2]; // replayed, skipped
+        Consumer<JournalRecord> apply = record -> {
+            counts[0]++;
+            if (!replay(record, state)) {
+                counts[1]++;
+            }
+        };
+
+        if (snapshot >= 0) {
+            JournalReader.read(BookingJournal.snapshotFile(directory, snapshot), apply);
+        }
+        int segmentsReplayed = 0;
+        for (int segment : BookingJournal.listSegments(directory)) {
+            if (segment >= snapshot) {
+                JournalReader.repair(BookingJournal.segmentFile(directory, segment), apply);
+                segmentsReplayed++;
+            }
         }
 
-        for (ReentrantLock lock : allocatedSeatLocks) {
-            if (lock.isHeldByCurrentThread()) {
-                try {
-                    lock.unlock();
-                } catch (IllegalMonitorStateException ignored) {
-                }
+        for (EventShow event : eventsMap.values()) {
+            reconcileSeats(event);
+        }
+
+        int holdsRestored = 0;
+        long now = System.currentTimeMillis();
+        // Holds that haven't ended are restored once replay is done
+        for (JournalRecord record : state.openHolds.values()) {
+            EventShow event = eventsMap.get(record.getEventId());
+            if (record.getTime() <= now || event == null) {
+                continue;
+            }
+            SeatInventory inventory = event.getInventory();
+            if (inventory.tryTransition(record.getSlots(), SeatStatus.AVAILABLE, SeatStatus.SELECTED) >= 0) {
+                continue;
             }
+            trackHold(new SeatHold(record.getId(), record.getUserId(), record.getEventId(),
+                    seatsAt(inventory, record.getSlots()), record.getSlots(), record.getAmount(), record.getTime()));
+            holdsRestored++;
         }
+
+        return new RecoveryStats(snapshot, segmentsReplayed, counts[0], counts[1], ticketStore.size(),
+                holdsRestored, (System.nanoTime() - start) / 1_000_000);
     }
 
-    private static String seatIdsList(List<Seat> seats) {
-        StringBuilder sb = new StringBuilder();
-        for (Seat s : seats) {
-            if (!sb.isEmpty()) sb.append(",");
-            sb.append(s.getSeatId());
+    /**
+     * Applies one journal record to in-memory state. Idempotent: a record whose
+     * effect is already present is ignored.
+     *
+     * @return false if the record was ignored
+     */
+    private boolean replay(JournalRecord record, ReplayState state) {
+        switch (record.getType()) {
+            case BOOKED: {
+                state.openHolds.remove(record.getRefId());
+                if (ticketStore.contains(record.getId())) {
+                    return false;
+                }
+                EventShow event = eventsMap.get(record.getEventId());
+                if (event == null) {
+                    // No inventory to book into; a CANCELLED record later on still restores the ticket
+                    state.unplaced.put(record.getId(), record);
+                    return false;
+                }
+                SeatInventory inventory = event.getInventory();
+                Map<Integer, String> owners = state.seatOwners.computeIfAbsent(record.getEventId(), _ -> new HashMap<>());
+                for (int slot : record.getSlots()) {
+                    inventory.setStatus(slot, SeatStatus.BOOKED);
+                    owners.putIfAbsent(slot, record.getId());
+                }
+                ticketIndex.add(ticketStore.add(record.getId(), record.getUserId(), record.getEventId(),
+                        inventory.getLayout(), record.getSlots(), record.getAmount(), record.getTime(),
+                        TicketStatus.BOOKED));
+                return true;
+            }
+            case CANCELLED: {
+                Ticket ticket = ticketStore.get(record.getId());
+                if (ticket == null) {
+                    JournalRecord booked = state.unplaced.remove(record.getId());
+                    if (booked == null) {
+                        return false;
+                    }
+                    // A cancelled ticket of an event that is gone: kept for queries, no seats to free
+                    ticketIndex.add(ticketStore.add(booked.getId(), booked.getUserId(), booked.getEventId(),
+                            null, booked.getSlots(), booked.getAmount(), booked.getTime(), TicketStatus.CANCELLED));
+                    return true;
+                }
+                EventShow event = eventsMap.get(ticket.getEventId());
+                if (event == null || ticket.getTicketStatus() != TicketStatus.BOOKED) {
+                    return false;
+                }
+                // Free only seats this ticket still owns; one rebooked by a later ticket stays BOOKED
+                Map<Integer, String> owners = state.seatOwners.getOrDefault(ticket.getEventId(), Collections.emptyMap());
+                for (int slot : ticket.getSlots()) {
+                    if (record.getId().equals(owners.get(slot))) {
+                        owners.remove(slot);
+                        event.getInventory().setStatus(slot, SeatStatus.AVAILABLE);
+                    }
+                }
+                ticket.setTicketStatus(TicketStatus.CANCELLED);
+                ticketIndex.statusChanged(ticket, TicketStatus.BOOKED);
+                return true;
+            }
+            case HOLD_PLACED:
+                return state.openHolds.putIfAbsent(record.getId(), record) == null;
+            case HOLD_ENDED:
+                return state.openHolds.remove(record.getId()) != null;
+            case DETACHED: {
+                // Everything journaled for the event so far moved to another instance
+                String eventId = record.getEventId();
+                EventShow event = eventsMap.get(eventId);
+                for (Ticket ticket : ticketIndex.removeEvent(eventId)) {
+                    if (event != null && ticket.getTicketStatus() == TicketStatus.BOOKED) {
+                        for (int slot : ticket.getSlots()) {
+                            event.getInventory().setStatus(slot, SeatStatus.AVAILABLE);
+                        }
+                    }
+                    ticketStore.remove(ticket.getTicketId());
+                }
+                state.seatOwners.remove(eventId);
+                state.unplaced.values().removeIf(booked -> eventId.equals(booked.getEventId()));
+                state.openHolds.values().removeIf(hold -> eventId.equals(hold.getEventId()));
+                return true;
+            }
+            default:
+                return false;
         }
-        return sb.toString();
     }
 
-    public void cancelTicket(String ticketId) {
-        if (ticketId == null || ticketId.trim().isEmpty()) {
-            throw new IllegalArgumentException("Ticket ID cannot be null or empty");
+    /**
+     * A seat file restored from disk may hold BOOKED seats that no ticket backs: a
+     * crash after a seat changed but before its journal record, or an event removed
+     * without its seats being released. The tickets are the record, so those seats
+     * are freed; seats of booked tickets were set BOOKED by replay.
+     */
+    private void reconcileSeats(EventShow event) {
+        SeatInventory inventory = event.getInventory();
+        if (inventory == null || !inventory.isRestored()) {
+            return;
         }
-        
-        Ticket ticket = ticketsMap.get(ticketId);
-        if (ticket == null) {
-            throw new IllegalArgumentException("No Such Ticket Found: " + ticketId);
+        BitSet owned = new BitSet(inventory.capacity());
+        for (Ticket ticket : ticketIndex.forEvent(event.getEventId(), TicketStatus.BOOKED)) {
+            for (int slot : ticket.getSlots()) {
+                owned.set(slot);
+            }
         }
-        
-        // Validate ticket can be cancelled
-        if (ticket.getTicketStatus() == TicketStatus.CANCELLED) {
-            throw new IllegalStateException("Ticket is already cancelled");
+        for (int slot = 0; slot < inventory.capacity(); slot++) {
+            if (!owned.get(slot)) {
+                inventory.compareAndSet(slot, SeatStatus.BOOKED, SeatStatus.AVAILABLE);
+            }
         }
-        
-        if (ticket.getTicketStatus() != TicketStatus.BOOKED) {
-            throw new IllegalStateException("Only booked tickets can be cancelled");
+    }
+
+    // What replay tracks across the records of one recovery or hand-over
+    private static final class ReplayState {
+        // Holds seen that haven't ended yet, in the order they were placed
+        private final Map<String, JournalRecord> openHolds = new LinkedHashMap<>();
+        // eventId -> slot -> id of the ticket whose booking holds the seat
+        private final Map<String, Map<Integer, String>> seatOwners = new HashMap<>();
+        // Bookings of events that aren't registered, by ticket id
+        private final Map<String, JournalRecord> unplaced = new HashMap<>();
+    }
+
+    private static List<Seat> seatsAt(SeatInventory inventory, int[] slots) {
+        List<Seat> seats = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            seats.add(inventory.getLayout().seatAt(slot));
         }
-        
-        List<ReentrantLock> allocatedSeatLocks = new ArrayList<>();
-        try {
-            // Acquire locks on seats before cancelling
-            allocatedSeatLocks = acquireLockOnSeats(ticket.getEventId(), ticket.getBookedSeats());
-            
-            cancelProcessor(ticket);
-            ticket.setTicketStatus(TicketStatus.CANCELLED);
-        } catch (Exception ex) {
-            throw new RuntimeException("Cancellation failed: " + ex.getMessage(), ex);
-        } finally {
-            releaseSeatLocks(allocatedSeatLocks);
+        return seats;
+    }
+
+    private void journalAsync(JournalRecord record) {
+        BookingJournal current = journal;
+        if (current != null) {
+            current.append(record);
         }
     }
 
-    private void cancelProcessor(Ticket ticket) {
-        // Release seats back to AVAILABLE status
-        for (Seat seat : ticket.getBookedSeats()) {
-            seat.setSeatStatus(SeatStatus.AVAILABLE);
+    /**
+     * Journals a change that is already applied and waits for it to reach disk. A
+     * failed write can't be undone here (seats, tickets and payments have moved), so
+     * it is reported rather than thrown; the next successful checkpoint covers it.
+     *
+     * @return false if the write failed
+     */
+    private boolean journalAndWait(JournalRecord record) {
+        BookingJournal current = journal;
+        if (current == null) {
+            return true;
+        }
+        try {
+            current.append(record).join();
+            return true;
+        } catch (CompletionException ex) {
+            System.err.println("[BookingSystem] Applied but not durable - journal write failed: "
+                    + ex.getCause().getMessage());
+            return false;
         }
     }
 
     public void paymentProcess(Ticket ticket) throws PaymentProcessingException {
-        // Simulate payment processing - in real system, this would call payment gateway
         if (ticket == null) {
             throw new PaymentProcessingException("Ticket cannot be null");
         }
-        
-        // Simulate a small chance of payment failure for testing
-        if (Math.random() < 0.05) { // 5% failure rate
-            throw new PaymentProcessingException("Payment processing failed");
-        }
-        
-        // Payment successful - no exception thrown
+        paymentGateway.charge(ticket);
     }
 
+    /**
+     * List price of the seats at the default fares, without event rules, surge or promos.
+     * Bookings are priced by quoteFare.
+     */
     public long calculateTicketFare(List<Seat> seats) {
         if (seats == null || seats.isEmpty()) {
             return 0;
         }
-        
+
         long totalPrice = 0;
         for (Seat seat : seats) {
-            switch (seat.getSeatType()) {
-                case REGULAR:
-                    totalPrice += 100;
-                    break;
-                case PREMIUM:
-                    totalPrice += 200;
-                    break;
-                case VIP:
-                    totalPrice += 500;
-                    break;
-                default:
-                    totalPrice += 100; // default to regular pricing
-            }
+            totalPrice += PriceTable.DEFAULT.basePrice(seat.getSeatType());
         }
         return totalPrice;
     }
 
+    // Pricing
+    /**
+     * Replaces the event's price rules; bookings priced after this call use them.
+     */
+    public void setPriceTable(String eventId, PriceTable priceTable) {
+        getEventDetails(eventId);
+        pricingEngine.setPriceTable(eventId, priceTable);
+    }
+
+    public PriceTable getPriceTable(String eventId) {
+        getEventDetails(eventId);
+        return pricingEngine.getPriceTable(eventId);
+    }
+
+    public void addPromoCode(PromoCode promoCode) {
+        pricingEngine.addPromoCode(promoCode);
+    }
+
+    public void removePromoCode(String code) {
+        pricingEngine.removePromoCode(code);
+    }
+
+    /**
+     * What the seats would cost right now (event prices, current surge tier, promo code
+     * if not null). The fare is fixed once the seats are held.
+     */
+    public long quoteFare(String eventId, List<String> seatIds, String promoCode) {
+        if (seatIds == null || seatIds.isEmpty()) {
+            throw new IllegalArgumentException("Seat IDs list cannot be null or empty");
+        }
+        SeatInventory inventory = inventoryOf(eventId);
+        int[] slots = slotsOf(inventory, getSeatsFromVenue(inventory.getLayout(), seatIds));
+        return pricingEngine.quote(eventId, slots, promoCode);
+    }
+
     private void refundProcessor(Ticket ticket) {
-        // In a real system, this would process refund through payment gateway
-        // For now, just log or handle the refund logic
         if (ticket != null) {
-            // Refund logic would go here
-            // For example: paymentGateway.refund(ticket.getTotalPrice());
+            paymentGateway.refund(ticket);
+            metrics.recordRefund();
         }
     }
     
-    private List<Seat> getSeatsFromVenue(Venue venue, List<String> seatIds) {
-        if (venue == null || venue.getSeats() == null) {
+    private List<Seat> getSeatsFromVenue(SeatLayout layout, List<String> seatIds) {
+        if (layout == null) {
             throw new IllegalArgumentException("Venue or seats list is null");
         }
-        
-        List<Seat> requestedSeats = new ArrayList<>();
-        Map<String, Seat> seatMap = new HashMap<>();
-        
-        // Create a map for quick lookup
-        for (Seat seat : venue.getSeats()) {
-            seatMap.put(seat.getSeatId(), seat);
-        }
-        
-        // Get seats by IDs
+
+        List<Seat> requestedSeats = new ArrayList<>(seatIds.size());
+        // A repeated seat would fail its own CAS and look like another buyer's hold
+        Set<String> seen = seatIds.size() > 1 ? new HashSet<>() : null;
         for (String seatId : seatIds) {
-            Seat seat = seatMap.get(seatId);
+            if (seen != null && !seen.add(seatId)) {
+                throw new IllegalArgumentException("Duplicate seat ID in request: " + seatId);
+            }
+            Seat seat = layout.getSeat(seatId);
             if (seat == null) {
                 throw new IllegalArgumentException("Seat not found in venue: " + seatId);
             }
@@ -1,8 +1,14 @@
 package concert_booking_system;
 
+import concert_booking_system.availability.AvailabilityDelta;
+import concert_booking_system.availability.AvailabilityFeed;
+import concert_booking_system.availability.AvailabilityListener;
+import concert_booking_system.availability.AvailabilitySnapshot;
 import concert_booking_system.entity.*;
 import concert_booking_system.enums.SeatStatus;
 import concert_booking_system.enums.SeatType;
+import concert_booking_system.enums.TicketStatus;
+import concert_booking_system.payment.FakePaymentGateway;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -36,6 +42,22 @@ public class BookingSystemDriver {
         // Test 4: Error handling
         testErrorHandling(bookingSystem, show, venue);
 
+        // Test 5: Two-phase hold/confirm and hold expiry
+        testHolds(bookingSystem, show, venue);
+
+        // Test 6: Async booking against a slow payment gateway
+        testAsyncBooking(bookingSystem, show, venue);
+
+        // Test 7: Waiting room admission for a launch-day event
+        testWaitingRoom(bookingSystem);
+
+        // Test 8: Seat-map availability snapshot + delta stream
+        testAvailabilityFeed(bookingSystem);
+
+        // Metrics collected across all the tests above
+        System.out.println("--- Metrics ---");
+        System.out.print(bookingSystem.dumpMetrics(false));
+
         System.out.println("\n=== Driver finished ===");
     }
 
@@ -48,10 +70,10 @@ public class BookingSystemDriver {
 
         ExecutorService executor = Executors.newFixedThreadPool(2);
 
-        // Task A: acquires locks and holds them (sleep)
+        // Task A: reserves seats and holds them (sleep)
         Callable<String> taskA = () -> {
             String userId = "holder-user";
-            System.out.println("[Task A] attempting to acquire locks and hold them...");
+            System.out.println("[Task A] attempting to reserve seats and hold them...");
             try {
                 Ticket t = bookingSystem.bookTicketWithHold(userId, show.getEventId(), targetSeatIds, 2000);
                 String res = "[Task A] Booking succeeded: " + t.getTicketId() + " status=" + t.getTicketStatus() 
@@ -65,12 +87,12 @@ public class BookingSystemDriver {
             }
         };
 
-        // Task B: try to book same seats while A is holding locks
+        // Task B: try to book same seats while A is holding them
         Callable<String> taskB = () -> {
-            // wait briefly to ensure A has acquired locks
+            // wait briefly to ensure A has reserved the seats
             try { Thread.sleep(100); } catch (InterruptedException ignored) {}
             String userId = "racer-user";
-            System.out.println("[Task B] attempting to book same seats while A holds locks...");
+            System.out.println("[Task B] attempting to book same seats while A holds them...");
             try {
                 Ticket t = bookingSystem.bookTicket(userId, show.getEventId(), targetSeatIds);
                 String res = "[Task B] Booking succeeded: " + t.getTicketId() + " status=" + t.getTicketStatus()
@@ -99,8 +121,10 @@ public class BookingSystemDriver {
             executor.shutdownNow();
         }
 
+        System.out.println("Booked tickets for event: "
+                + bookingSystem.getTicketsForEvent(show.getEventId(), TicketStatus.BOOKED).size());
         System.out.println("Seat statuses after concurrency test:");
-        printSeatStatuses(venue.getSeats());
+        printSeatStatuses(show, venue.getSeats());
         System.out.println();
     }
 
@@ -127,15 +151,15 @@ public class BookingSystemDriver {
             Ticket ticket = bookingSystem.bookTicket("user-2", show.getEventId(), seatIds);
             System.out.println("Ticket booked: " + ticket.getTicketId() + ", Status: " + ticket.getTicketStatus());
             
-            Seat seatBeforeCancel = venue.getSeats().get(3);
-            System.out.println("Seat status before cancellation: " + seatBeforeCancel.getSeatStatus());
+            System.out.println("Seat status before cancellation: " + show.getSeatStatus(seatIds.get(0)));
             
             // Cancel the ticket
             bookingSystem.cancelTicket(ticket.getTicketId());
             System.out.println("Ticket cancelled: " + ticket.getTicketId() + ", Status: " + ticket.getTicketStatus());
+            System.out.println("Cancelled tickets for user-2: "
+                    + bookingSystem.getTicketsForUser("user-2", TicketStatus.CANCELLED).size());
             
-            Seat seatAfterCancel = venue.getSeats().get(3);
-            System.out.println("Seat status after cancellation: " + seatAfterCancel.getSeatStatus());
+            System.out.println("Seat status after cancellation: " + show.getSeatStatus(seatIds.get(0)));
         } catch (Exception e) {
             System.out.println("Cancellation test failed: " + e.getMessage());
         }
@@ -171,6 +195,122 @@ public class BookingSystemDriver {
         System.out.println();
     }
 
+    private static void testHolds(BookingSystem bookingSystem, EventShow show, Venue venue) {
+        System.out.println("--- Test 5: Seat Holds ---");
+        String seatId = venue.getSeats().get(2).getSeatId();
+        try {
+            // Hold, then confirm: payment runs with nothing locked
+            String holdId = bookingSystem.holdSeats("user-6", show.getEventId(), Arrays.asList(seatId), 60_000);
+            System.out.println("Hold created: " + holdId + ", Seat status: " + show.getSeatStatus(seatId));
+            Ticket ticket = bookingSystem.confirmHold(holdId);
+            System.out.println("Hold confirmed: Ticket ID=" + ticket.getTicketId() + ", Seat status: " + show.getSeatStatus(seatId));
+            bookingSystem.cancelTicket(ticket.getTicketId());
+
+            // Hold with a short TTL and let the sweeper reclaim it
+            String shortHoldId = bookingSystem.holdSeats("user-7", show.getEventId(), Arrays.asList(seatId), 300);
+            System.out.println("Short hold created: " + shortHoldId + ", Seat status: " + show.getSeatStatus(seatId));
+            Thread.sleep(600);
+            System.out.println("Seat status after TTL: " + show.getSeatStatus(seatId));
+            bookingSystem.confirmHold(shortHoldId);
+        } catch (Exception e) {
+            System.out.println("Expected error for expired hold: " + e.getMessage());
+        }
+        System.out.println();
+    }
+
+    private static void testAsyncBooking(BookingSystem bookingSystem, EventShow show, Venue venue) {
+        System.out.println("--- Test 6: Async Booking ---");
+        bookingSystem.setPaymentGateway(new FakePaymentGateway(200, 0.0));
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<Ticket>> futures = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            String seatId = venue.getSeats().get(i).getSeatId();
+            futures.add(bookingSystem.bookTicketAsync("async-user-" + i, show.getEventId(), Arrays.asList(seatId)));
+        }
+        for (CompletableFuture<Ticket> future : futures) {
+            try {
+                Ticket t = future.join();
+                System.out.println("Async booking succeeded: " + t.getTicketId() + " seats=" + t.getBookedSeats().get(0).getSeatId());
+            } catch (CompletionException e) {
+                System.out.println("Async booking failed: " + e.getCause().getMessage());
+            }
+        }
+        // Three 200ms payments overlap instead of running back to back
+        System.out.println("Elapsed: " + (System.currentTimeMillis() - start) + "ms");
+        System.out.println();
+    }
+
+    private static void testWaitingRoom(BookingSystem bookingSystem) throws InterruptedException {
+        System.out.println("--- Test 7: Waiting Room ---");
+        bookingSystem.setPaymentGateway(new FakePaymentGateway(0, 0.0));
+        Venue venue = createVenue("venue-2", "LaunchLocation", 10);
+        EventShow launch = new EventShow("event-launch", System.currentTimeMillis(), venue);
+        bookingSystem.addEvent(launch);
+        // Two admissions up front, then five per second
+        bookingSystem.openWaitingRoom(launch.getEventId(), 5, 2);
+
+        List<String> sessions = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            sessions.add(bookingSystem.joinWaitingRoom("fan-" + i, launch.getEventId()));
+        }
+        for (String session : sessions) {
+            System.out.println(bookingSystem.getWaitingRoomStatus(session));
+        }
+        try {
+            bookingSystem.bookTicket("fan-4", launch.getEventId(), Arrays.asList("S4"));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Expected error without token: " + e.getMessage());
+        }
+
+        String firstToken = bookingSystem.getWaitingRoomStatus(sessions.get(0)).getAdmissionToken();
+        Ticket t = bookingSystem.bookTicket("fan-1", launch.getEventId(), Arrays.asList("S1"), firstToken);
+        System.out.println("Admitted booking succeeded: " + t.getTicketId());
+        try {
+            bookingSystem.bookTicket("fan-1", launch.getEventId(), Arrays.asList("S2"), firstToken);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Expected error for spent token: " + e.getMessage());
+        }
+
+        Thread.sleep(500);
+        System.out.println("After 500ms: " + bookingSystem.getWaitingRoomStatus(sessions.get(3)));
+        bookingSystem.closeWaitingRoom(launch.getEventId());
+        System.out.println();
+    }
+
+    private static void testAvailabilityFeed(BookingSystem bookingSystem) throws InterruptedException {
+        System.out.println("--- Test 8: Availability Feed ---");
+        EventShow show = new EventShow("event-seatmap", System.currentTimeMillis(),
+                createVenue("venue-3", "SeatMapLocation", 8));
+        bookingSystem.addEvent(show);
+
+        AvailabilitySnapshot snapshot = bookingSystem.getAvailability(show.getEventId());
+        System.out.println("Snapshot v" + snapshot.getVersion() + ": " + snapshot.getAvailableCount()
+                + "/" + snapshot.getCapacity() + " available");
+        AvailabilityFeed.Subscription subscription = bookingSystem.subscribeAvailability(show.getEventId(),
+                snapshot.getVersion(), new AvailabilityListener() {
+                    @Override
+                    public void onSnapshot(AvailabilitySnapshot fresh) {
+                        System.out.println("Pushed snapshot v" + fresh.getVersion());
+                    }
+
+                    @Override
+                    public void onDelta(AvailabilityDelta delta) {
+                        System.out.println("Pushed " + delta);
+                    }
+                });
+
+        Ticket t = bookingSystem.bookTicket("map-user", show.getEventId(), Arrays.asList("S1", "S2"));
+        System.out.println("Seats left: " + bookingSystem.getAvailableSeatCount(show.getEventId())
+                + ", sold out: " + bookingSystem.isSoldOut(show.getEventId()));
+        Thread.sleep(300);
+        bookingSystem.cancelTicket(t.getTicketId());
+        Thread.sleep(300);
+        subscription.cancel();
+        System.out.println("Changes since v" + snapshot.getVersion() + ": "
+                + bookingSystem.getAvailabilityChanges(show.getEventId(), snapshot.getVersion()).size());
+        System.out.println();
+    }
+
     private static Venue createVenue(String venueId, String location, int seatCount) {
         List<Seat> seats = new ArrayList<>();
         for (int i = 0; i < seatCount; i++) {
@@ -195,9 +335,9 @@ public class BookingSystemDriver {
         return new Venue(venueId, location, seats);
     }
 
-    private static void printSeatStatuses(List<Seat> seats) {
+    private static void printSeatStatuses(EventShow show, List<Seat> seats) {
         for (Seat s : seats) {
-            System.out.println("Seat " + s.getSeatId() + " -> " + s.getSeatStatus());
+            System.out.println("Seat " + s.getSeatId() + " -> " + show.getSeatStatus(s.getSeatId()));
         }
     }
 
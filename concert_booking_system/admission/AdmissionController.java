@@ -0,0 +1,206 @@
+package concert_booking_system.admission;
+
+import concert_booking_system.scheduler.HashedTimerWheel;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control in front of the booking path: one WaitingRoom per gated event.
+ *
+ * A buyer joins the room, polls status for position/ETA, and once admitted gets
+ * a single-use admission token bound to their user and event. Booking claims the
+ * token for the duration of the attempt: a failed attempt (seat conflict, payment
+ * decline) hands it back for a retry, a successful one spends it. Tokens expire
+ * tokenTtlMillis after they are issued so an admitted buyer who walks away
+ * doesn't keep a place forever. A session nobody has touched (join, status, claim)
+ * for sessionIdleMillis - and whose token, if any, has expired - is dropped by a
+ * timer on the wheel, so abandoned tabs don't pile up.
+ */
+public class AdmissionController {
+
+    private final long tokenTtlMillis;
+    private final long sessionIdleMillis;
+    private final HashedTimerWheel expiryWheel;
+    private final Map<String, WaitingRoom> rooms;
+    private final Map<String, Session> sessions;
+    private final Map<String, Session> sessionsByToken;
+
+    public AdmissionController(long tokenTtlMillis, long sessionIdleMillis, HashedTimerWheel expiryWheel) {
+        if (tokenTtlMillis <= 0) {
+            throw new IllegalArgumentException("Token TTL must be positive");
+        }
+        if (sessionIdleMillis <= 0) {
+            throw new IllegalArgumentException("Session idle timeout must be positive");
+        }
+        this.tokenTtlMillis = tokenTtlMillis;
+        this.sessionIdleMillis = sessionIdleMillis;
+        this.expiryWheel = expiryWheel;
+        this.rooms = new ConcurrentHashMap<>();
+        this.sessions = new ConcurrentHashMap<>();
+        this.sessionsByToken = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gates the event: from now on bookings need an admission token.
+     *
+     * @param permitsPerSecond steady admission rate
+     * @param burst            admissions allowed back-to-back after a quiet spell
+     */
+    public void openRoom(String eventId, double permitsPerSecond, int burst) {
+        if (rooms.putIfAbsent(eventId, new WaitingRoom(permitsPerSecond, burst)) != null) {
+            throw new IllegalStateException("Waiting room already open for event: " + eventId);
+        }
+    }
+
+    /**
+     * Ungates the event and drops its waiting and admitted sessions.
+     */
+    public void closeRoom(String eventId) {
+        if (rooms.remove(eventId) != null) {
+            sessions.values().removeIf(session -> session.eventId.equals(eventId));
+            sessionsByToken.values().removeIf(session -> session.eventId.equals(eventId));
+        }
+    }
+
+    public boolean isGated(String eventId) {
+        return rooms.containsKey(eventId);
+    }
+
+    /**
+     * @return session id to poll with status
+     */
+    public String join(String userId, String eventId) {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        WaitingRoom room = rooms.get(eventId);
+        if (room == null) {
+            throw new IllegalArgumentException("No waiting room for event: " + eventId);
+        }
+        Session session = new Session(UUID.randomUUID().toString(), userId, eventId, room, room.join());
+        sessions.put(session.sessionId, session);
+        scheduleExpiry(session, sessionIdleMillis);
+        return session.sessionId;
+    }
+
+    public WaitStatus status(String sessionId) {
+        Session session = sessionId == null ? null : sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("No Such Waiting Room Session: " + sessionId);
+        }
+        session.lastSeenMillis = System.currentTimeMillis();
+        long position = session.room.position(session.sequence);
+        if (position > 0) {
+            return new WaitStatus(sessionId, position, session.room.etaMillis(position), null, 0);
+        }
+        synchronized (session) {
+            if (session.token == null) {
+                session.token = UUID.randomUUID().toString();
+                session.tokenExpiresAt = System.currentTimeMillis() + tokenTtlMillis;
+                sessionsByToken.put(session.token, session);
+            } else if (session.tokenExpiresAt <= System.currentTimeMillis()) {
+                remove(session);
+                throw new IllegalStateException("Admission token expired; join the waiting room again");
+            }
+            return new WaitStatus(sessionId, 0, 0, session.token, session.tokenExpiresAt);
+        }
+    }
+
+    /**
+     * Reserves the token for one booking attempt.
+     *
+     * @throws IllegalArgumentException if the token is unknown, expired or for another user/event
+     * @throws IllegalStateException    if another attempt is already using the token
+     */
+    public Admission claim(String admissionToken, String userId, String eventId) {
+        Session session = admissionToken == null ? null : sessionsByToken.get(admissionToken);
+        if (session == null || !session.userId.equals(userId) || !session.eventId.equals(eventId)) {
+            throw new IllegalArgumentException("Invalid admission token for event: " + eventId);
+        }
+        session.lastSeenMillis = System.currentTimeMillis();
+        if (session.tokenExpiresAt <= System.currentTimeMillis()) {
+            remove(session);
+            throw new IllegalArgumentException("Admission token expired; join the waiting room again");
+        }
+        if (!session.inUse.compareAndSet(false, true)) {
+            throw new IllegalStateException("Admission token is already in use");
+        }
+        return new Admission(session);
+    }
+
+    private void scheduleExpiry(Session session, long delayMillis) {
+        expiryWheel.schedule(() -> expireIfIdle(session), delayMillis);
+    }
+
+    // Runs on the wheel thread: drop the session, or check again when it could next go idle
+    private void expireIfIdle(Session session) {
+        if (sessions.get(session.sessionId) != session) {
+            return;
+        }
+        long expiresAt = Math.max(session.lastSeenMillis + sessionIdleMillis,
+                session.token == null ? 0 : session.tokenExpiresAt);
+        long remaining = expiresAt - System.currentTimeMillis();
+        if (remaining > 0 || session.inUse.get()) {
+            scheduleExpiry(session, Math.max(remaining, sessionIdleMillis / 4));
+        } else {
+            remove(session);
+        }
+    }
+
+    private void remove(Session session) {
+        sessions.remove(session.sessionId);
+        if (session.token != null) {
+            sessionsByToken.remove(session.token);
+        }
+    }
+
+    /**
+     * A claimed admission token; exactly one of complete or release must follow.
+     */
+    public final class Admission {
+        private final Session session;
+
+        private Admission(Session session) {
+            this.session = session;
+        }
+
+        /**
+         * The booking went through: the token is spent.
+         */
+        public void complete() {
+            remove(session);
+        }
+
+        /**
+         * The booking failed: the token can be used again until it expires.
+         */
+        public void release() {
+            session.inUse.set(false);
+        }
+    }
+
+    private static final class Session {
+        private final String sessionId;
+        private final String userId;
+        private final String eventId;
+        private final WaitingRoom room;
+        private final long sequence;
+        private final AtomicBoolean inUse = new AtomicBoolean(false);
+        // Issued on the first status poll after admission; guarded by the session monitor
+        private volatile String token;
+        private volatile long tokenExpiresAt;
+        private volatile long lastSeenMillis = System.currentTimeMillis();
+
+        private Session(String sessionId, String userId, String eventId, WaitingRoom room, long sequence) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.eventId = eventId;
+            this.room = room;
+            this.sequence = sequence;
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package concert_booking_system.admission;
+
+/**
+ * Where a waiting-room session stands. Once admitted, position is 0 and
+ * admissionToken is set; pass it to BookingSystem.bookTicket.
+ */
+public class WaitStatus {
+
+    private final String sessionId;
+    private final long position;
+    private final long etaMillis;
+    private final String admissionToken;
+    private final long tokenExpiresAt;
+
+    WaitStatus(String sessionId, long position, long etaMillis, String admissionToken, long tokenExpiresAt) {
+        this.sessionId = sessionId;
+        this.position = position;
+        this.etaMillis = etaMillis;
+        this.admissionToken = admissionToken;
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return 1-based place in line, or 0 once admitted
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return estimated wait until admission at the room's current rate
+     */
+    public long getEtaMillis() {
+        return etaMillis;
+    }
+
+    public boolean isAdmitted() {
+        return admissionToken != null;
+    }
+
+    public String getAdmissionToken() {
+        return admissionToken;
+    }
+
+    public long getTokenExpiresAt() {
+        return tokenExpiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return isAdmitted()
+                ? "WaitStatus{session=" + sessionId + ", admitted, token=" + admissionToken + "}"
+                : "WaitStatus{session=" + sessionId + ", position=" + position + ", eta=" + etaMillis + "ms}";
+    }
+
+}
@@ -0,0 +1,81 @@
+package concert_booking_system.admission;
+
+/**
+ * WaitingRoom - FIFO line for one event, drained by a token bucket
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. JOIN:
+ *    - Every arrival takes the next sequence number; the line is just the range
+ *      [admittedThrough, nextSequence), so joining is O(1) and nobody can cut in
+ *
+ * 2. ADMIT (lazy token bucket, no timer thread):
+ *    - On any query, tokens += elapsed * permitsPerSecond (capped at burst)
+ *    - Each whole token admits the head of the line: admittedThrough++
+ *    - A session is admitted once its sequence < admittedThrough
+ *
+ * 3. POSITION / ETA:
+ *    - position = sequence - admittedThrough + 1
+ *    - eta = (position - tokens) / permitsPerSecond
+ *
+ * All state is guarded by the room's monitor; every operation is a few arithmetic
+ * steps, so the lock is never held for long.
+ */
+class WaitingRoom {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private double tokens;
+    private long lastRefillNanos;
+    private long nextSequence;
+    private long admittedThrough;
+
+    WaitingRoom(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("Admission rate must be positive");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("Burst must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized long join() {
+        return nextSequence++;
+    }
+
+    /**
+     * @return 0 if the sequence has been admitted, else its 1-based position in line
+     */
+    synchronized long position(long sequence) {
+        admit();
+        return sequence < admittedThrough ? 0 : sequence - admittedThrough + 1;
+    }
+
+    synchronized long etaMillis(long position) {
+        if (position == 0) {
+            return 0;
+        }
+        return (long) Math.ceil(Math.max(0, position - tokens) * 1000 / permitsPerSecond);
+    }
+
+    synchronized long waiting() {
+        admit();
+        return nextSequence - admittedThrough;
+    }
+
+    private void admit() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+        lastRefillNanos = now;
+        // Tokens only turn into admissions while someone is waiting; otherwise they bank up to burst
+        long admitted = Math.min((long) tokens, nextSequence - admittedThrough);
+        admittedThrough += admitted;
+        tokens -= admitted;
+    }
+
+}
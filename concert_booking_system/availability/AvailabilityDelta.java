@@ -0,0 +1,55 @@
+package concert_booking_system.availability;
+
+import concert_booking_system.enums.SeatStatus;
+
+/**
+ * Seats whose state changed since the previous version, with their state as of
+ * this version. States are absolute, so applying a delta twice is harmless.
+ */
+public final class AvailabilityDelta {
+
+    private static final SeatStatus[] STATES = SeatStatus.values();
+
+    private final String eventId;
+    private final long version;
+    private final int[] slots;
+    private final byte[] statuses;
+
+    AvailabilityDelta(String eventId, long version, int[] slots, byte[] statuses) {
+        this.eventId = eventId;
+        this.version = version;
+        this.slots = slots;
+        this.statuses = statuses;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    public int getSlot(int index) {
+        return slots[index];
+    }
+
+    public SeatStatus getStatus(int index) {
+        return STATES[statuses[index]];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AvailabilityDelta{event=").append(eventId)
+                .append(", version=").append(version).append(", changes=[");
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(slots[i]).append('=').append(getStatus(i));
+        }
+        return sb.append("]}").toString();
+    }
+
+}
@@ -0,0 +1,228 @@
+package concert_booking_system.availability;
+
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.inventory.SeatInventory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * AvailabilityFeed - Versioned seat-map availability for one event
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. TRACK (booking threads, via SeatInventory.Listener):
+ *    - Set the seat's bit in a dirty bitmap (1 bit per seat), then raise anyDirty.
+ *      No allocation, no lock; a seat changing ten times between publishes is one bit
+ *
+ * 2. PUBLISH (publisher thread, every few ms):
+ *    - Clear anyDirty, then swap every dirty word to 0 and collect its slots
+ *    - Read those seats' CURRENT states and publish them as delta version + 1
+ *    - Keep the last HISTORY_SIZE deltas for catch-up; drop the cached snapshot
+ *    Because states are read after the dirty bit is taken, a change can never be
+ *    lost: if a publish reads a seat before its latest change, that change's bit
+ *    is already set again for the next publish.
+ *
+ * 3. SNAPSHOT (any thread):
+ *    - Built on first request after a publish, then served from cache until the
+ *      next publish, so thousands of pollers cost one O(seats) copy per version.
+ *    - snapshot(V) may already include changes not yet published; the deltas > V
+ *      carry absolute states, so snapshot + later deltas always converge.
+ */
+public class AvailabilityFeed implements SeatInventory.Listener {
+
+    private static final int HISTORY_SIZE = 1024;
+
+    private final String eventId;
+    private final SeatInventory inventory;
+    private final AtomicLongArray dirty;
+    private volatile boolean anyDirty;
+    private final List<Subscription> subscribers;
+    // Guarded by this
+    private long version;
+    private final ArrayDeque<AvailabilityDelta> history;
+    private volatile AvailabilitySnapshot cached;
+
+    private AvailabilityFeed(String eventId, SeatInventory inventory) {
+        this.eventId = eventId;
+        this.inventory = inventory;
+        this.dirty = new AtomicLongArray((inventory.capacity() + Long.SIZE - 1) / Long.SIZE);
+        this.subscribers = new CopyOnWriteArrayList<>();
+        this.history = new ArrayDeque<>();
+    }
+
+    /**
+     * Builds a feed and starts tracking the inventory's changes; close() stops it.
+     */
+    public static AvailabilityFeed open(String eventId, SeatInventory inventory) {
+        AvailabilityFeed feed = new AvailabilityFeed(eventId, inventory);
+        // Registered only once built, so no transition reaches a half-built feed
+        inventory.addListener(feed);
+        return feed;
+    }
+
+    @Override
+    public void onTransition(int slot, SeatStatus from, SeatStatus to) {
+        int index = slot / Long.SIZE;
+        long bit = 1L << (slot % Long.SIZE);
+        long word;
+        do {
+            word = dirty.get(index);
+            if ((word & bit) != 0) {
+                break;
+            }
+        } while (!dirty.compareAndSet(index, word, word | bit));
+        if (!anyDirty) {
+            anyDirty = true;
+        }
+    }
+
+    /**
+     * Publishes pending changes as the next version, if there are any.
+     */
+    public synchronized void publish() {
+        if (!anyDirty) {
+            return;
+        }
+        anyDirty = false;
+        int[] slots = new int[16];
+        int count = 0;
+        for (int index = 0; index < dirty.length(); index++) {
+            if (dirty.get(index) == 0) {
+                continue;
+            }
+            long bits = dirty.getAndSet(index, 0);
+            while (bits != 0) {
+                if (count == slots.length) {
+                    slots = Arrays.copyOf(slots, count * 2);
+                }
+                slots[count++] = index * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        slots = Arrays.copyOf(slots, count);
+        byte[] statuses = new byte[count];
+        for (int i = 0; i < count; i++) {
+            statuses[i] = (byte) inventory.getStatus(slots[i]).ordinal();
+        }
+
+        AvailabilityDelta delta = new AvailabilityDelta(eventId, ++version, slots, statuses);
+        history.addLast(delta);
+        if (history.size() > HISTORY_SIZE) {
+            history.removeFirst();
+        }
+        cached = null;
+        for (Subscription subscription : subscribers) {
+            subscription.deliver(delta);
+        }
+    }
+
+    public AvailabilitySnapshot snapshot() {
+        AvailabilitySnapshot snapshot = cached;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (cached == null) {
+                cached = new AvailabilitySnapshot(eventId, version, inventory.capacity(), inventory.copyWords());
+            }
+            return cached;
+        }
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return deltas after sinceVersion, oldest first (empty if up to date)
+     * @throws IllegalStateException if they are no longer retained - fetch a snapshot instead
+     */
+    public synchronized List<AvailabilityDelta> deltasSince(long sinceVersion) {
+        if (sinceVersion > version || sinceVersion < 0) {
+            throw new IllegalArgumentException("Unknown availability version: " + sinceVersion);
+        }
+        if (sinceVersion == version) {
+            return Collections.emptyList();
+        }
+        if (history.isEmpty() || history.peekFirst().getVersion() > sinceVersion + 1) {
+            throw new IllegalStateException("Version " + sinceVersion + " is too old; fetch a new snapshot");
+        }
+        List<AvailabilityDelta> deltas = new ArrayList<>();
+        for (AvailabilityDelta delta : history) {
+            if (delta.getVersion() > sinceVersion) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Catches the listener up from fromVersion (replaying retained deltas, or a
+     * snapshot if fromVersion is negative or too old), then pushes every new delta.
+     */
+    public synchronized Subscription subscribe(long fromVersion, AvailabilityListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        Subscription subscription = new Subscription(listener);
+        List<AvailabilityDelta> backlog = null;
+        if (fromVersion >= 0 && fromVersion <= version) {
+            try {
+                backlog = deltasSince(fromVersion);
+            } catch (IllegalStateException tooOld) {
+                backlog = null;
+            }
+        }
+        if (backlog == null) {
+            listener.onSnapshot(snapshot());
+        } else {
+            for (AvailabilityDelta delta : backlog) {
+                listener.onDelta(delta);
+            }
+        }
+        // Registered under the publish lock: nothing published between catch-up and now
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Detaches from the inventory and drops all subscribers.
+     */
+    public void close() {
+        inventory.removeListener(this);
+        subscribers.clear();
+    }
+
+    public final class Subscription {
+        private final AvailabilityListener listener;
+
+        private Subscription(AvailabilityListener listener) {
+            this.listener = listener;
+        }
+
+        private void deliver(AvailabilityDelta delta) {
+            try {
+                listener.onDelta(delta);
+            } catch (RuntimeException e) {
+                // A broken subscriber must not stall everyone else's feed
+                System.err.println("[AvailabilityFeed] Dropping subscriber of " + eventId + ": " + e.getMessage());
+                cancel();
+            }
+        }
+
+        public void cancel() {
+            subscribers.remove(this);
+        }
+    }
+
+}
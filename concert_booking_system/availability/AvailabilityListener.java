@@ -0,0 +1,16 @@
+package concert_booking_system.availability;
+
+/**
+ * Push subscriber of an AvailabilityFeed. Callbacks run on the feed's publisher
+ * thread in version order; keep them short and hand real work to your own executor.
+ */
+public interface AvailabilityListener {
+
+    /**
+     * The subscriber was too far behind (or asked for a fresh start): replace all state.
+     */
+    void onSnapshot(AvailabilitySnapshot snapshot);
+
+    void onDelta(AvailabilityDelta delta);
+
+}
@@ -0,0 +1,101 @@
+package concert_booking_system.availability;
+
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.inventory.SeatInventory;
+
+import java.util.Arrays;
+
+/**
+ * Seat states of one event as of a feed version, in SeatInventory's packed
+ * 2-bit form (an 80k-seat venue is ~20KB). Immutable; shared by every viewer
+ * until the next version is published.
+ */
+public final class AvailabilitySnapshot {
+
+    private static final int RUN_LENGTH_BITS = 30;
+    private static final SeatStatus[] STATES = SeatStatus.values();
+
+    private final String eventId;
+    private final long version;
+    private final int capacity;
+    private final long[] words;
+    private final int availableCount;
+
+    AvailabilitySnapshot(String eventId, long version, int capacity, long[] words) {
+        this.eventId = eventId;
+        this.version = version;
+        this.capacity = capacity;
+        this.words = words;
+        int available = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (SeatInventory.statusIn(words, slot) == SeatStatus.AVAILABLE) {
+                available++;
+            }
+        }
+        this.availableCount = available;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Apply deltas with a higher version on top of this snapshot to catch up.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAvailableCount() {
+        return availableCount;
+    }
+
+    public SeatStatus getStatus(int slot) {
+        if (slot < 0 || slot >= capacity) {
+            throw new IllegalArgumentException("Seat slot out of range: " + slot);
+        }
+        return SeatInventory.statusIn(words, slot);
+    }
+
+    /**
+     * @return packed state words (2 bits per slot, 32 slots per word); a copy
+     */
+    public long[] getPackedStates() {
+        return words.clone();
+    }
+
+    /**
+     * Run-length form, smallest when large blocks share a state (fresh or sold-out
+     * houses): each int is (status ordinal << 30) | run length, in slot order.
+     */
+    public int[] toRunLength() {
+        int[] runs = new int[16];
+        int count = 0;
+        int slot = 0;
+        while (slot < capacity) {
+            SeatStatus status = SeatInventory.statusIn(words, slot);
+            int start = slot;
+            while (slot < capacity && SeatInventory.statusIn(words, slot) == status) {
+                slot++;
+            }
+            if (count == runs.length) {
+                runs = Arrays.copyOf(runs, count * 2);
+            }
+            runs[count++] = (status.ordinal() << RUN_LENGTH_BITS) | (slot - start);
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    public static SeatStatus runStatus(int run) {
+        return STATES[run >>> RUN_LENGTH_BITS];
+    }
+
+    public static int runLength(int run) {
+        return run & ((1 << RUN_LENGTH_BITS) - 1);
+    }
+
+}
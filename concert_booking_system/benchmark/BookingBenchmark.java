@@ -0,0 +1,305 @@
+package concert_booking_system.benchmark;
+
+import concert_booking_system.BookingSystem;
+import concert_booking_system.entity.EventShow;
+import concert_booking_system.entity.Seat;
+import concert_booking_system.entity.SeatLayout;
+import concert_booking_system.entity.Ticket;
+import concert_booking_system.entity.Venue;
+import concert_booking_system.enums.BookingMode;
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.enums.SeatType;
+import concert_booking_system.inventory.SeatInventory;
+import concert_booking_system.payment.FakePaymentGateway;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BookingBenchmark - Repeatable throughput numbers for the booking hot paths
+ *
+ * Self-contained harness (no JMH dependency) following the JMH model:
+ * fixed warmup + measurement iterations per parameter point, platform threads,
+ * results consumed into a sink so the JIT can't drop the work.
+ *
+ * PARAMETERS (cartesian product):
+ *   venueSeats      1k, 10k, 100k
+ *   seatsPerRequest 1, 5, 10
+ *   threads         1, 4, available processors
+ *
+ * BENCHMARKS:
+ *   seatLookup          resolve seat ids against the venue's seat index
+ *   reserveRelease      all-or-nothing CAS reserve + release on the seat inventory
+ *   calculateTicketFare fare for one request
+ *   bookThenCancel      full bookTicket + cancelTicket on random seat blocks
+ *   hotBlockContention  bookThenCancel with every thread on the same seat block
+ *   bookThenCancelSingleWriter, hotBlockContentionSingleWriter
+ *                       the same two through the event's single writer (BookingMode.SINGLE_WRITER)
+ *
+ * Usage: --out=benchmark-results.json --warmupMs=500 --measureMs=1000 --iterations=3
+ *        --venueSeats=1000,100000 --seatsPerRequest=1,10 --threads=1,8 --benchmarks=bookThenCancel
+ *
+ * Results are written as a JSON array (one entry per benchmark/parameter point)
+ * so two runs can be diffed for regressions.
+ */
+public class BookingBenchmark {
+
+    private static final String[] ALL_BENCHMARKS = {
+            "seatLookup", "reserveRelease", "calculateTicketFare", "bookThenCancel", "hotBlockContention",
+            "bookThenCancelSingleWriter", "hotBlockContentionSingleWriter"
+    };
+
+    // Keeps benchmark results observable
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        Path out = Path.of(options.getOrDefault("out", "benchmark-results.json"));
+        long warmupMs = Long.parseLong(options.getOrDefault("warmupMs", "500"));
+        long measureMs = Long.parseLong(options.getOrDefault("measureMs", "1000"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "3"));
+        int[] venueSizes = parseInts(options.getOrDefault("venueSeats", "1000,10000,100000"));
+        int[] requestSizes = parseInts(options.getOrDefault("seatsPerRequest", "1,5,10"));
+        int[] threadCounts = parseInts(options.getOrDefault("threads",
+                "1,4," + Runtime.getRuntime().availableProcessors()));
+        String[] benchmarks = options.containsKey("benchmarks")
+                ? options.get("benchmarks").split(",") : ALL_BENCHMARKS;
+
+        BookingSystem bookingSystem = BookingSystem.getInstance();
+        bookingSystem.setPaymentGateway(new FakePaymentGateway(0, 0.0));
+
+        List<Result> results = new ArrayList<>();
+        for (String benchmark : benchmarks) {
+            for (int venueSeats : venueSizes) {
+                for (int seatsPerRequest : requestSizes) {
+                    for (int threads : new TreeSet<>(boxed(threadCounts))) {
+                        EventShow show = newShow(bookingSystem, venueSeats);
+                        Operation operation = operation(benchmark, bookingSystem, show, seatsPerRequest);
+                        Result result = new Result(benchmark, venueSeats, seatsPerRequest, threads);
+                        run(operation, threads, warmupMs);
+                        for (int i = 0; i < iterations; i++) {
+                            result.iterations.add(run(operation, threads, measureMs));
+                        }
+                        bookingSystem.removeEvent(show);
+                        System.out.println(result.summary());
+                        results.add(result);
+                    }
+                }
+            }
+        }
+        writeJson(out, results);
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        long invoke(ThreadLocalRandom random);
+    }
+
+    private static Operation operation(String benchmark,
+                                       BookingSystem bookingSystem,
+                                       EventShow show,
+                                       int seatsPerRequest) {
+        SeatInventory inventory = show.getInventory();
+        SeatLayout layout = inventory.getLayout();
+        int blocks = Math.max(1, layout.size() / seatsPerRequest);
+        List<String> hotBlock = seatIds(layout, 0, seatsPerRequest);
+
+        switch (benchmark) {
+            case "seatLookup":
+                return random -> {
+                    int start = random.nextInt(blocks) * seatsPerRequest;
+                    long acc = 0;
+                    for (int i = 0; i < seatsPerRequest; i++) {
+                        acc += layout.getSeat(layout.seatAt(start + i).getSeatId()).hashCode();
+                    }
+                    return acc;
+                };
+            case "reserveRelease":
+                return random -> {
+                    int start = random.nextInt(blocks) * seatsPerRequest;
+                    int[] slots = new int[seatsPerRequest];
+                    for (int i = 0; i < seatsPerRequest; i++) {
+                        slots[i] = start + i;
+                    }
+                    if (inventory.tryTransition(slots, SeatStatus.AVAILABLE, SeatStatus.SELECTED) < 0) {
+                        inventory.tryTransition(slots, SeatStatus.SELECTED, SeatStatus.AVAILABLE);
+                        return 1;
+                    }
+                    return 0;
+                };
+            case "calculateTicketFare": {
+                List<Seat> seats = new ArrayList<>(layout.getSeats().subList(0, seatsPerRequest));
+                return random -> bookingSystem.calculateTicketFare(seats);
+            }
+            case "bookThenCancel":
+                return random -> bookThenCancel(bookingSystem, show,
+                        seatIds(layout, random.nextInt(blocks) * seatsPerRequest, seatsPerRequest));
+            case "hotBlockContention":
+                return random -> bookThenCancel(bookingSystem, show, hotBlock);
+            case "bookThenCancelSingleWriter":
+                bookingSystem.setBookingMode(show.getEventId(), BookingMode.SINGLE_WRITER);
+                return operation("bookThenCancel", bookingSystem, show, seatsPerRequest);
+            case "hotBlockContentionSingleWriter":
+                bookingSystem.setBookingMode(show.getEventId(), BookingMode.SINGLE_WRITER);
+                return random -> bookThenCancel(bookingSystem, show, hotBlock);
+            default:
+                throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+        }
+    }
+
+    private static long bookThenCancel(BookingSystem bookingSystem, EventShow show, List<String> seatIds) {
+        try {
+            Ticket ticket = bookingSystem.bookTicket("bench-user", show.getEventId(), seatIds);
+            bookingSystem.cancelTicket(ticket.getTicketId());
+            return 1;
+        } catch (RuntimeException ex) {
+            // Lost the race for the block; still a completed operation
+            return 0;
+        }
+    }
+
+    /**
+     * @return operations per second across all threads for one timed iteration
+     */
+    private static double run(Operation operation, int threads, long durationMs) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long local = 0;
+                long acc = 0;
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (running.get()) {
+                    acc += operation.invoke(random);
+                    local++;
+                }
+                ops.add(local);
+                sink += acc;
+            }, "bench-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(durationMs);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    private static EventShow newShow(BookingSystem bookingSystem, int venueSeats) {
+        List<Seat> seats = new ArrayList<>(venueSeats);
+        SeatType[] types = SeatType.values();
+        for (int i = 0; i < venueSeats; i++) {
+            seats.add(new Seat("S" + (i + 1), types[i % types.length], SeatStatus.AVAILABLE));
+        }
+        EventShow show = new EventShow("bench-" + System.nanoTime(), System.currentTimeMillis(),
+                new Venue("bench-venue", "Benchmark", seats));
+        bookingSystem.addEvent(show);
+        return show;
+    }
+
+    private static List<String> seatIds(SeatLayout layout, int start, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = start; i < start + count && i < layout.size(); i++) {
+            ids.add(layout.seatAt(i).getSeatId());
+        }
+        return ids;
+    }
+
+    private static int[] parseInts(String csv) {
+        return Arrays.stream(csv.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    private static List<Integer> boxed(int[] values) {
+        List<Integer> list = new ArrayList<>();
+        for (int v : values) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    private static void writeJson(Path out, List<Result> results) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(out))) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                writer.print(results.get(i).toJson());
+                writer.println(i < results.size() - 1 ? "," : "");
+            }
+            writer.println("]");
+        }
+    }
+
+    private static class Result {
+        private final String benchmark;
+        private final int venueSeats;
+        private final int seatsPerRequest;
+        private final int threads;
+        private final List<Double> iterations = new ArrayList<>();
+
+        Result(String benchmark, int venueSeats, int seatsPerRequest, int threads) {
+            this.benchmark = benchmark;
+            this.venueSeats = venueSeats;
+            this.seatsPerRequest = seatsPerRequest;
+            this.threads = threads;
+        }
+
+        double score() {
+            return iterations.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        }
+
+        double scoreError() {
+            double mean = score();
+            double variance = iterations.stream().mapToDouble(v -> (v - mean) * (v - mean)).sum()
+                    / Math.max(1, iterations.size() - 1);
+            return Math.sqrt(variance);
+        }
+
+        String summary() {
+            return String.format("%-20s venueSeats=%-7d seatsPerRequest=%-3d threads=%-3d %,14.0f ops/s  +- %,.0f",
+                    benchmark, venueSeats, seatsPerRequest, threads, score(), scoreError());
+        }
+
+        String toJson() {
+            StringBuilder raw = new StringBuilder();
+            for (double v : iterations) {
+                if (!raw.isEmpty()) raw.append(", ");
+                raw.append(String.format(Locale.ROOT, "%.1f", v));
+            }
+            return String.format(Locale.ROOT,
+                    "  {\"benchmark\": \"%s\", \"mode\": \"thrpt\", \"threads\": %d, "
+                            + "\"params\": {\"venueSeats\": %d, \"seatsPerRequest\": %d}, "
+                            + "\"primaryMetric\": {\"score\": %.1f, \"scoreError\": %.1f, \"scoreUnit\": \"ops/s\", "
+                            + "\"rawData\": [%s]}}",
+                    benchmark, threads, venueSeats, seatsPerRequest, score(), scoreError(), raw);
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package concert_booking_system.benchmark;
+
+import concert_booking_system.BookingSystem;
+import concert_booking_system.entity.EventShow;
+import concert_booking_system.entity.Seat;
+import concert_booking_system.entity.Venue;
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.enums.SeatType;
+import concert_booking_system.persistence.BookingJournal;
+import concert_booking_system.persistence.JournalRecord;
+import concert_booking_system.persistence.RecoveryStats;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures BookingSystem recovery time: writes a snapshot of N booked tickets plus a
+ * log tail, then times enableJournal replaying them into a fresh BookingSystem.
+ *
+ * Usage: --tickets=10000000 --tail=100000 --seatsPerEvent=100000 --dir=/tmp/booking-journal
+ * Needs a heap large enough for the tickets (roughly 400 bytes each, e.g. -Xmx6g for 10M).
+ * Run once per JVM - BookingSystem is a singleton.
+ */
+public class RecoveryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        int tickets = Integer.parseInt(options.getOrDefault("tickets", "10000000"));
+        int tail = Integer.parseInt(options.getOrDefault("tail", "100000"));
+        int seatsPerEvent = Integer.parseInt(options.getOrDefault("seatsPerEvent", "100000"));
+        Path dir = options.containsKey("dir")
+                ? Path.of(options.get("dir")) : Files.createTempDirectory("booking-journal");
+        Files.createDirectories(dir);
+        int events = (tickets + seatsPerEvent - 1) / seatsPerEvent;
+
+        List<Seat> seats = new ArrayList<>(seatsPerEvent);
+        for (int i = 0; i < seatsPerEvent; i++) {
+            seats.add(new Seat("S" + (i + 1), SeatType.REGULAR, SeatStatus.AVAILABLE));
+        }
+        Venue venue = new Venue("recovery-venue", "Benchmark", seats);
+        BookingSystem bookingSystem = BookingSystem.getInstance();
+        for (int e = 0; e < events; e++) {
+            bookingSystem.addEvent(new EventShow("event-" + e, System.currentTimeMillis(), venue));
+        }
+
+        long writeStart = System.nanoTime();
+        int snapshotted = Math.max(0, tickets - tail);
+        BookingJournal.writeSnapshot(dir, 1, () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshotted;
+            }
+
+            @Override
+            public JournalRecord next() {
+                return bookedRecord(next++, seatsPerEvent);
+            }
+        });
+        BookingJournal writer = new BookingJournal(dir, 1);
+        CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+        for (int i = snapshotted; i < tickets; i++) {
+            last = writer.append(bookedRecord(i, seatsPerEvent));
+        }
+        last.join();
+        writer.close();
+        System.out.printf("Wrote %d-ticket snapshot + %d-record tail to %s in %.0f ms%n",
+                snapshotted, tickets - snapshotted, dir, (System.nanoTime() - writeStart) / 1e6);
+
+        RecoveryStats stats = bookingSystem.enableJournal(dir, Long.MAX_VALUE / 2);
+        System.out.println(stats);
+        System.out.printf("%.0f tickets/s%n", stats.getTicketsRecovered() * 1000.0 / Math.max(1, stats.getElapsedMillis()));
+    }
+
+    private static JournalRecord bookedRecord(int i, int seatsPerEvent) {
+        return JournalRecord.booked(new UUID(0x5EED, i).toString(), null, "user-" + (i % 100_000),
+                "event-" + (i / seatsPerEvent), 100, 1_700_000_000_000L + i, new int[]{i % seatsPerEvent});
+    }
+
+}
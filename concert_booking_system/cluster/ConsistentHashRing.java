@@ -0,0 +1,114 @@
+package concert_booking_system.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * ConsistentHashRing - Maps keys to nodes so that adding or removing a node only
+ * moves the keys that node gains or loses
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. RING:
+ *    - Every node is placed at virtualNodes points on a 64-bit ring
+ *      (hash of "nodeId#i"), which evens out the share each node gets
+ *    - A key belongs to the first point at or after hash(key), wrapping around
+ *
+ * 2. COPY-ON-WRITE:
+ *    - The ring is immutable; withNode/withoutNode return a new ring, so lookups
+ *      never lock and a router can compare old and new owners while rebalancing
+ */
+public final class ConsistentHashRing<T> {
+
+    private final int virtualNodes;
+    private final NavigableMap<Long, String> points;
+    private final Map<String, T> nodes;
+
+    public ConsistentHashRing(int virtualNodes) {
+        this(virtualNodes, new TreeMap<>(), new TreeMap<>());
+    }
+
+    private ConsistentHashRing(int virtualNodes, NavigableMap<Long, String> points, Map<String, T> nodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes per node must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+        this.points = points;
+        this.nodes = nodes;
+    }
+
+    public ConsistentHashRing<T> withNode(String nodeId, T node) {
+        if (nodeId == null || node == null) {
+            throw new IllegalArgumentException("Node ID and node cannot be null");
+        }
+        if (nodes.containsKey(nodeId)) {
+            throw new IllegalArgumentException("Node already on the ring: " + nodeId);
+        }
+        TreeMap<Long, String> nextPoints = new TreeMap<>(points);
+        for (int i = 0; i < virtualNodes; i++) {
+            // On the (astronomically rare) collision the earlier node keeps the point
+            nextPoints.putIfAbsent(hash(nodeId + "#" + i), nodeId);
+        }
+        TreeMap<String, T> nextNodes = new TreeMap<>(nodes);
+        nextNodes.put(nodeId, node);
+        return new ConsistentHashRing<>(virtualNodes, nextPoints, nextNodes);
+    }
+
+    public ConsistentHashRing<T> withoutNode(String nodeId) {
+        if (!nodes.containsKey(nodeId)) {
+            throw new IllegalArgumentException("Node not on the ring: " + nodeId);
+        }
+        TreeMap<Long, String> nextPoints = new TreeMap<>(points);
+        nextPoints.values().removeIf(nodeId::equals);
+        TreeMap<String, T> nextNodes = new TreeMap<>(nodes);
+        nextNodes.remove(nodeId);
+        return new ConsistentHashRing<>(virtualNodes, nextPoints, nextNodes);
+    }
+
+    /**
+     * @return id of the node owning key, or null if the ring is empty
+     */
+    public String nodeIdFor(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> owner = points.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * @return the node owning key, or null if the ring is empty
+     */
+    public T nodeFor(String key) {
+        String nodeId = nodeIdFor(key);
+        return nodeId == null ? null : nodes.get(nodeId);
+    }
+
+    public Map<String, T> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    // FNV-1a over the UTF-8 bytes, then a murmur3 finalizer to spread similar keys
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,310 @@
+package concert_booking_system.cluster;
+
+import concert_booking_system.BookingSystem;
+import concert_booking_system.entity.EventShow;
+import concert_booking_system.entity.SeatCode;
+import concert_booking_system.entity.SeatLayout;
+import concert_booking_system.entity.Ticket;
+import concert_booking_system.entity.Venue;
+import concert_booking_system.persistence.JournalRecord;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * ShardRouter - Partitioned deployment of BookingSystem: events spread over shards
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. PARTITIONS:
+ *    - A whole event is one partition, keyed by its eventId
+ *    - A hot event can be split by section: each section becomes its own partition
+ *      (key "eventId#section") with a show holding just that section's seats, so
+ *      different sections of one event sell on different shards
+ *    - The owner of a partition is ring.nodeFor(key) on a ConsistentHashRing
+ *
+ * 2. ROUTING:
+ *    - bookTicket goes to the partition's owner under the partition's read lock
+ *    - cancelTicket is routed by the ticket's eventId, which is its partition key, so
+ *      the router keeps no per-ticket state
+ *    - A request must stay inside one partition; a split event's seats from two
+ *      sections are booked separately
+ *
+ * 3. LIVE REBALANCING (addShard/removeShard):
+ *    - Build the new ring, then for every partition whose owner changed:
+ *      take its write lock (waits out in-flight requests, queues new ones),
+ *      detachEvent on the old owner (which journals a DETACHED record, so its tickets
+ *      don't come back there on restart), attachEvent on the new one, switch owner, unlock
+ *    - Consistent hashing keeps the moved share to roughly 1/shards of partitions;
+ *      partitions that don't move are never blocked
+ *
+ * Shards are BookingSystem.newInstance() objects in this process; one router owns them.
+ */
+public class ShardRouter {
+
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /**
+     * Section of a "section-row-number" seat id (see SeatCode).
+     */
+    public static final Function<String, String> SEAT_CODE_SECTION = seatId -> {
+        int code = SeatCode.parse(seatId);
+        if (code < 0) {
+            throw new IllegalArgumentException("Seat ID is not a section-row-number code: " + seatId);
+        }
+        return String.valueOf(SeatCode.section(code));
+    };
+
+    private volatile ConsistentHashRing<BookingSystem> ring;
+    // Partition key -> partition
+    private final Map<String, Partition> partitions;
+    // eventId -> section function, for events split by section
+    private final Map<String, Function<String, String>> splitEvents;
+
+    public ShardRouter() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ShardRouter(int virtualNodes) {
+        this.ring = new ConsistentHashRing<>(virtualNodes);
+        this.partitions = new ConcurrentHashMap<>();
+        this.splitEvents = new ConcurrentHashMap<>();
+    }
+
+    // Cluster membership
+    public synchronized void addShard(String nodeId, BookingSystem shard) {
+        ring = ring.withNode(nodeId, shard);
+        rebalance();
+    }
+
+    public synchronized void removeShard(String nodeId) {
+        if (ring.size() == 1 && ring.getNodes().containsKey(nodeId) && !partitions.isEmpty()) {
+            throw new IllegalStateException("Cannot remove the last shard while it owns events");
+        }
+        ring = ring.withoutNode(nodeId);
+        rebalance();
+    }
+
+    // Admin operations
+    public synchronized void addEvent(EventShow eventShow) {
+        checkNewEvent(eventShow);
+        place(new Partition(eventShow.getEventId(), eventShow.getEventId(), eventShow));
+    }
+
+    /**
+     * Splits a hot event into one partition per section of a "section-row-number" layout.
+     */
+    public void addEventSplitBySection(EventShow eventShow) {
+        addEventSplit(eventShow, SEAT_CODE_SECTION);
+    }
+
+    /**
+     * Splits a hot event into one partition per section, as named by sectionOf(seatId).
+     */
+    public synchronized void addEventSplit(EventShow eventShow, Function<String, String> sectionOf) {
+        checkNewEvent(eventShow);
+        SeatLayout layout = eventShow.getVenue().getLayout();
+        Map<String, List<Integer>> slotsBySection = new TreeMap<>();
+        for (int slot = 0; slot < layout.size(); slot++) {
+            String section = sectionOf.apply(layout.seatAt(slot).getSeatId());
+            slotsBySection.computeIfAbsent(section, _ -> new ArrayList<>()).add(slot);
+        }
+        Venue venue = eventShow.getVenue();
+        for (Map.Entry<String, List<Integer>> section : slotsBySection.entrySet()) {
+            String key = sectionKey(eventShow.getEventId(), section.getKey());
+            int[] slots = section.getValue().stream().mapToInt(Integer::intValue).toArray();
+            EventShow sectionShow = new EventShow(key, eventShow.getEventDate(),
+                    new Venue(venue.getVenueId(), venue.getLocation(), layout.subset(slots)));
+            place(new Partition(key, eventShow.getEventId(), sectionShow));
+        }
+        splitEvents.put(eventShow.getEventId(), sectionOf);
+    }
+
+    /**
+     * Takes the event (every section of a split one) off sale. As with
+     * BookingSystem.removeEvent, its tickets stay on the shard that owned it.
+     */
+    public synchronized void removeEvent(String eventId) {
+        List<Partition> removed = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            if (partition.eventId.equals(eventId)) {
+                removed.add(partition);
+            }
+        }
+        if (removed.isEmpty()) {
+            throw new IllegalArgumentException("Event not found: " + eventId);
+        }
+        for (Partition partition : removed) {
+            partition.lock.writeLock().lock();
+            try {
+                partition.owner.removeEvent(partition.show);
+                partitions.remove(partition.key);
+            } finally {
+                partition.lock.writeLock().unlock();
+            }
+        }
+        splitEvents.remove(eventId);
+    }
+
+    // Routed operations
+    /**
+     * Books on the shard owning the event (or, for a split event, the seats' section).
+     * The ticket's eventId is the partition key, "eventId#section" for split events.
+     */
+    public Ticket bookTicket(String userId, String eventId, List<String> seatIds) {
+        Partition partition = partitionFor(eventId, seatIds);
+        Lock lock = partition.lock.readLock();
+        lock.lock();
+        try {
+            return partition.owner.bookTicket(userId, partition.key, seatIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param eventId the ticket's eventId as bookTicket returned it ("eventId#section"
+     *                for a split event), which names its partition
+     */
+    public void cancelTicket(String eventId, String ticketId) {
+        if (eventId == null || eventId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Event ID cannot be null or empty");
+        }
+        Partition partition = partitions.get(eventId);
+        if (partition == null) {
+            throw new IllegalArgumentException("Event not found: " + eventId);
+        }
+        Lock lock = partition.lock.readLock();
+        lock.lock();
+        try {
+            partition.owner.cancelTicket(eventId, ticketId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return id of the shard currently serving the seat (any seat, for unsplit events)
+     */
+    public String shardOf(String eventId, String seatId) {
+        Partition partition = partitionFor(eventId, seatId == null ? List.of() : List.of(seatId));
+        return partition.ownerId;
+    }
+
+    /**
+     * @return number of partitions each shard currently owns
+     */
+    public Map<String, Integer> partitionsPerShard() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String nodeId : ring.getNodes().keySet()) {
+            counts.put(nodeId, 0);
+        }
+        for (Partition partition : partitions.values()) {
+            counts.merge(partition.ownerId, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private Partition partitionFor(String eventId, List<String> seatIds) {
+        if (eventId == null || eventId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Event ID cannot be null or empty");
+        }
+        Function<String, String> sectionOf = splitEvents.get(eventId);
+        if (sectionOf == null) {
+            Partition partition = partitions.get(eventId);
+            if (partition == null) {
+                throw new IllegalArgumentException("Event not found: " + eventId);
+            }
+            return partition;
+        }
+        if (seatIds == null || seatIds.isEmpty()) {
+            throw new IllegalArgumentException("Seat IDs are required to route a split event");
+        }
+        String section = sectionOf.apply(seatIds.get(0));
+        for (String seatId : seatIds) {
+            if (!section.equals(sectionOf.apply(seatId))) {
+                throw new IllegalArgumentException("Seats span sections " + section + " and "
+                        + sectionOf.apply(seatId) + "; book each section separately");
+            }
+        }
+        Partition partition = partitions.get(sectionKey(eventId, section));
+        if (partition == null) {
+            throw new IllegalArgumentException("Seat not found in venue: " + seatIds.get(0));
+        }
+        return partition;
+    }
+
+    private void checkNewEvent(EventShow eventShow) {
+        if (eventShow == null) {
+            throw new IllegalArgumentException("Event cannot be null");
+        }
+        if (ring.size() == 0) {
+            throw new IllegalStateException("No shards to place the event on");
+        }
+        String eventId = eventShow.getEventId();
+        if (partitions.containsKey(eventId) || splitEvents.containsKey(eventId)) {
+            throw new IllegalArgumentException("Event already routed: " + eventId);
+        }
+    }
+
+    private void place(Partition partition) {
+        String nodeId = ring.nodeIdFor(partition.key);
+        BookingSystem shard = ring.getNodes().get(nodeId);
+        shard.addEvent(partition.show);
+        partition.ownerId = nodeId;
+        partition.owner = shard;
+        partitions.put(partition.key, partition);
+    }
+
+    private void rebalance() {
+        ConsistentHashRing<BookingSystem> current = ring;
+        for (Partition partition : partitions.values()) {
+            String targetId = current.nodeIdFor(partition.key);
+            if (!targetId.equals(partition.ownerId)) {
+                migrate(partition, targetId, current.getNodes().get(targetId));
+            }
+        }
+    }
+
+    private void migrate(Partition partition, String targetId, BookingSystem target) {
+        partition.lock.writeLock().lock();
+        try {
+            List<JournalRecord> records = partition.owner.detachEvent(partition.key);
+            // Fresh show over the same layout snapshot: records refer to seats by slot
+            EventShow moved = new EventShow(partition.key, partition.show.getEventDate(),
+                    new Venue(partition.show.getVenue().getVenueId(), partition.show.getVenue().getLocation(),
+                            partition.show.getLayout()));
+            target.attachEvent(moved, records);
+            partition.show = moved;
+            partition.ownerId = targetId;
+            partition.owner = target;
+        } finally {
+            partition.lock.writeLock().unlock();
+        }
+    }
+
+    private static String sectionKey(String eventId, String section) {
+        return eventId + "#" + section;
+    }
+
+    private static final class Partition {
+        private final String key;
+        private final String eventId;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // Written under the write lock, read under the read lock
+        private EventShow show;
+        private volatile String ownerId;
+        private volatile BookingSystem owner;
+
+        private Partition(String key, String eventId, EventShow show) {
+            this.key = key;
+            this.eventId = eventId;
+            this.show = show;
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package concert_booking_system.engine;
+
+import concert_booking_system.entity.SeatHold;
+import concert_booking_system.entity.Ticket;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A booking or cancellation queued for an event's single writer. The writer only
+ * does the seat-state part: a BOOK completes with the hold on the reserved seats
+ * (payment and commit run on the caller's side), a CANCEL with the cancelled
+ * ticket. Failures complete the future with the exception the direct API would throw.
+ */
+public class BookingCommand {
+
+    public enum Type {
+        BOOK,
+        CANCEL
+    }
+
+    private final Type type;
+    private final String userId;
+    private final List<String> seatIds;
+    private final String ticketId;
+    private final CompletableFuture<SeatHold> held;
+    private final CompletableFuture<Ticket> cancelled;
+
+    private BookingCommand(Type type, String userId, List<String> seatIds, String ticketId) {
+        this.type = type;
+        this.userId = userId;
+        this.seatIds = seatIds;
+        this.ticketId = ticketId;
+        this.held = type == Type.BOOK ? new CompletableFuture<>() : null;
+        this.cancelled = type == Type.CANCEL ? new CompletableFuture<>() : null;
+    }
+
+    public static BookingCommand book(String userId, List<String> seatIds) {
+        return new BookingCommand(Type.BOOK, userId, seatIds, null);
+    }
+
+    public static BookingCommand cancel(String ticketId) {
+        return new BookingCommand(Type.CANCEL, null, null, ticketId);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public List<String> getSeatIds() {
+        return seatIds;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    /**
+     * BOOK only: completes once the seats are SELECTED under a hold.
+     */
+    public CompletableFuture<SeatHold> getHeld() {
+        return held;
+    }
+
+    /**
+     * CANCEL only: completes once the ticket is cancelled in memory (not yet journaled).
+     */
+    public CompletableFuture<Ticket> getCancelled() {
+        return cancelled;
+    }
+
+}
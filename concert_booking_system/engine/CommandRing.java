@@ -0,0 +1,111 @@
+package concert_booking_system.engine;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CommandRing - Bounded multi-producer / single-consumer ring buffer
+ *
+ * ALGORITHM (Disruptor-style sequencing):
+ * =======================================
+ *
+ * 1. CLAIM (producer):
+ *    - Take a free-slot permit first (backpressure, never overwrite): when the
+ *      ring is full producers block instead of spinning, which matters when
+ *      thousands of virtual threads are submitting
+ *    - seq = claimed.incrementAndGet(); the slot is seq & mask
+ *
+ * 2. PUBLISH (producer):
+ *    - Store the entry, then store seq into published[slot] (volatile) - the
+ *      consumer only reads an entry once it sees its own sequence in that slot,
+ *      so a slow producer never exposes a half-written entry
+ *
+ * 3. DRAIN (consumer):
+ *    - Walk forward from consumed + 1 while published[slot] == seq, taking every
+ *      ready entry in one pass (a batch), then advance consumed and hand the
+ *      slots back as permits
+ *
+ * No locks on the ring itself; producers contend only on the permit count and
+ * one getAndIncrement.
+ */
+final class CommandRing<E> {
+
+    private final Object[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed;
+    private final Semaphore freeSlots;
+    private volatile long consumed;
+    // Consumer parks when idle; producers unpark it only if it says it is waiting
+    private volatile Thread consumer;
+    private volatile boolean consumerWaiting;
+
+    CommandRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two");
+        }
+        this.entries = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.claimed = new AtomicLong(-1);
+        this.freeSlots = new Semaphore(capacity);
+        this.consumed = -1;
+    }
+
+    void publish(E entry) {
+        freeSlots.acquireUninterruptibly();
+        long seq = claimed.incrementAndGet();
+        int slot = (int) (seq & mask);
+        entries[slot] = entry;
+        published.set(slot, seq);
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Consumer only: moves up to max ready entries into batch, in sequence order.
+     *
+     * @return number of entries taken
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<E> batch, int max) {
+        long next = consumed + 1;
+        int taken = 0;
+        while (taken < max) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) != next) {
+                break;
+            }
+            batch.add((E) entries[slot]);
+            entries[slot] = null;
+            next++;
+            taken++;
+        }
+        if (taken > 0) {
+            consumed = next - 1;
+            freeSlots.release(taken);
+        }
+        return taken;
+    }
+
+    /**
+     * Consumer only: parks until something may be ready or maxNanos pass.
+     */
+    void awaitWork(long maxNanos) {
+        consumer = Thread.currentThread();
+        consumerWaiting = true;
+        // Re-check after announcing, so a publish that missed the flag is still seen
+        if (published.get((int) ((consumed + 1) & mask)) != consumed + 1) {
+            LockSupport.parkNanos(this, maxNanos);
+        }
+        consumerWaiting = false;
+    }
+
+}
@@ -0,0 +1,99 @@
+package concert_booking_system.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Single writer thread for one event. Callers submit commands from any thread;
+ * the writer applies them in arrival order, a batch at a time, so the handler
+ * runs without locks and every command sees the effects of all earlier ones.
+ */
+public class EventWriter<C> {
+
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final CommandRing<C> ring;
+    private final int maxBatch;
+    private final Consumer<List<C>> handler;
+    private final Thread thread;
+    private final AtomicInteger activeProducers;
+    private volatile boolean running;
+
+    /**
+     * @param capacity ring size (power of two); submit waits when this many commands are queued
+     * @param maxBatch most commands handed to handler at once
+     * @param handler  applies a batch; runs only on the writer thread
+     */
+    public EventWriter(String name, int capacity, int maxBatch, Consumer<List<C>> handler) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.ring = new CommandRing<>(capacity);
+        this.maxBatch = maxBatch;
+        this.handler = handler;
+        this.activeProducers = new AtomicInteger();
+        this.running = true;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @return false if the writer has been shut down and the command was not queued
+     */
+    public boolean submit(C command) {
+        activeProducers.incrementAndGet();
+        try {
+            if (!running) {
+                return false;
+            }
+            ring.publish(command);
+            return true;
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting commands, applies everything already queued, then exits.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<C> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            if (ring.drainTo(batch, maxBatch) > 0) {
+                apply(batch);
+                continue;
+            }
+            if (!running && activeProducers.get() == 0) {
+                // Producers that got in before shutdown have published by now
+                while (ring.drainTo(batch, maxBatch) > 0) {
+                    apply(batch);
+                }
+                return;
+            }
+            ring.awaitWork(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void apply(List<C> batch) {
+        try {
+            handler.accept(batch);
+        } catch (RuntimeException e) {
+            // The handler owns per-command failures; never let one batch kill the writer
+            System.err.println("[EventWriter] Batch failed: " + e.getMessage());
+        }
+        batch.clear();
+    }
+
+}
@@ -0,0 +1,58 @@
+package concert_booking_system.entity;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk cancellation (cancelTickets / cancelEvent).
+ */
+public class CancellationReport {
+
+    private final int cancelled;
+    // ticketId -> why it was not cancelled
+    private final Map<String, String> failures;
+    private final int refunded;
+    // Cancelled tickets whose refund failed and must be retried
+    private final List<String> refundFailures;
+    private final long elapsedMillis;
+
+    public CancellationReport(int cancelled,
+                              Map<String, String> failures,
+                              int refunded,
+                              List<String> refundFailures,
+                              long elapsedMillis) {
+        this.cancelled = cancelled;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.refunded = refunded;
+        this.refundFailures = Collections.unmodifiableList(refundFailures);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getCancelled() {
+        return cancelled;
+    }
+
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    public int getRefunded() {
+        return refunded;
+    }
+
+    public List<String> getRefundFailures() {
+        return refundFailures;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Cancelled " + cancelled + " tickets (" + failures.size() + " failed), refunded " + refunded
+                + " (" + refundFailures.size() + " refunds failed), in " + elapsedMillis + "ms";
+    }
+
+}
@@ -1,10 +1,21 @@
 package concert_booking_system.entity;
 
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.inventory.HeapSeatWords;
+import concert_booking_system.inventory.SeatInventory;
+import concert_booking_system.inventory.SeatWords;
+
+import java.util.function.Function;
+
 public class EventShow {
 
     private final String eventId;
     private final Long eventDate;
     private final Venue venue;
+    // This show's own seat states; shows at the same venue never share booking state
+    private volatile SeatInventory inventory;
+    // Layout the first inventory was built over; reopening reuses it so slots keep their seats
+    private volatile SeatLayout layout;
 
     public EventShow(String eventId, Long eventDate, Venue venue) {
         this.eventId = eventId;
@@ -24,4 +35,64 @@ public class EventShow {
         return venue;
     }
 
+    /**
+     * @return the open inventory, or null before openInventory / after closeInventory
+     */
+    public SeatInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Seat layout this show's inventory was (or will be) built over; unlike
+     * getInventory() it stays available after the inventory is closed.
+     */
+    public SeatLayout getLayout() {
+        SeatLayout opened = layout;
+        return opened != null ? opened : venue.getLayout();
+    }
+
+    /**
+     * Builds this show's inventory from the venue's current layout. Called once when the
+     * show is added to the booking system; later venue changes don't affect an open show.
+     */
+    public SeatInventory openInventory() {
+        return openInventory(layout -> new HeapSeatWords(SeatInventory.wordsFor(layout.size())));
+    }
+
+    /**
+     * Same as openInventory(), with the seat states kept in the store built by storage
+     * (e.g. a memory-mapped file). After closeInventory a fresh inventory is built
+     * over the same layout as before.
+     */
+    public synchronized SeatInventory openInventory(Function<SeatLayout, SeatWords> storage) {
+        if (inventory == null) {
+            SeatLayout opened = getLayout();
+            inventory = new SeatInventory(opened, storage.apply(opened));
+            layout = opened;
+        }
+        return inventory;
+    }
+
+    /**
+     * Closes the inventory (flushing a mapped store) and forgets it, so a later
+     * openInventory builds a new one instead of handing back a closed store.
+     */
+    public synchronized void closeInventory() {
+        if (inventory != null) {
+            inventory.close();
+            inventory = null;
+        }
+    }
+
+    public SeatStatus getSeatStatus(String seatId) {
+        if (inventory == null) {
+            throw new IllegalStateException("Inventory not opened for event: " + eventId);
+        }
+        int slot = inventory.getLayout().slotOf(seatId);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Seat not found in venue: " + seatId);
+        }
+        return inventory.getStatus(slot);
+    }
+
 }
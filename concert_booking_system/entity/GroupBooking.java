@@ -0,0 +1,61 @@
+package concert_booking_system.entity;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Composite receipt of a group booking: one ticket per event, all booked together.
+ * Each ticket is an ordinary ticket and can be cancelled on its own afterwards.
+ */
+public class GroupBooking {
+
+    private final String groupId;
+    private final String userId;
+    private final List<Ticket> tickets;
+    private final long totalPrice;
+    private final long bookingTimestamp;
+
+    public GroupBooking(String groupId,
+                        String userId,
+                        List<Ticket> tickets,
+                        long bookingTimestamp) {
+        this.groupId = groupId;
+        this.userId = userId;
+        this.tickets = Collections.unmodifiableList(tickets);
+        long total = 0;
+        for (Ticket ticket : tickets) {
+            total += ticket.getTotalPrice();
+        }
+        this.totalPrice = total;
+        this.bookingTimestamp = bookingTimestamp;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public long getBookingTimestamp() {
+        return bookingTimestamp;
+    }
+
+    public int getSeatCount() {
+        int count = 0;
+        for (Ticket ticket : tickets) {
+            count += ticket.getBookedSeats().size();
+        }
+        return count;
+    }
+
+}
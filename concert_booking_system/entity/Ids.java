@@ -0,0 +1,45 @@
+package concert_booking_system.entity;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Random 128-bit ids in the usual UUID text form.
+ *
+ * Ticket and hold ids are bearer credentials - cancelTicket, confirmHold and
+ * releaseHold act on whoever presents the id - so they must be unguessable and
+ * come from a SecureRandom. UUID.randomUUID() draws from one shared instance,
+ * which serializes every booking thread; these come from a small set of
+ * independent DRBG instances picked by thread id instead.
+ */
+public final class Ids {
+
+    private static final SecureRandom[] RANDOMS = newRandoms();
+
+    private Ids() {
+    }
+
+    public static String randomId() {
+        SecureRandom random = RANDOMS[(int) Thread.currentThread().threadId() & (RANDOMS.length - 1)];
+        // Version 4 / IETF variant bits, so the ids read as ordinary random UUIDs
+        long hi = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lo = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(hi, lo).toString();
+    }
+
+    // A power of two at least twice the core count; each instance locks on its own
+    private static SecureRandom[] newRandoms() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        SecureRandom[] randoms = new SecureRandom[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                randoms[i] = SecureRandom.getInstance("DRBG");
+            }
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("No DRBG SecureRandom available", ex);
+        }
+        return randoms;
+    }
+
+}
@@ -0,0 +1,88 @@
+package concert_booking_system.entity;
+
+/**
+ * Packs a seat's section/row/number position into one int.
+ *
+ * ENCODING:
+ * =========
+ *   bit 30..24  section  (0-127)
+ *   bit 23..14  row      (0-1023)
+ *   bit 13..0   number   (0-16383)
+ * The sign bit stays clear, so codes sort in section, row, number order and
+ * -1 is free to mean "not a seat code". The matching seat id is
+ * "section-row-number", e.g. "3-12-7".
+ */
+public final class SeatCode {
+
+    public static final int MAX_SECTION = (1 << 7) - 1;
+    public static final int MAX_ROW = (1 << 10) - 1;
+    public static final int MAX_NUMBER = (1 << 14) - 1;
+
+    private static final int ROW_SHIFT = 14;
+    private static final int SECTION_SHIFT = 24;
+
+    private SeatCode() {
+    }
+
+    public static int pack(int section, int row, int number) {
+        if (section < 0 || section > MAX_SECTION || row < 0 || row > MAX_ROW || number < 0 || number > MAX_NUMBER) {
+            throw new IllegalArgumentException("Seat position out of range: " + section + "-" + row + "-" + number);
+        }
+        return (section << SECTION_SHIFT) | (row << ROW_SHIFT) | number;
+    }
+
+    public static int section(int code) {
+        return code >>> SECTION_SHIFT;
+    }
+
+    public static int row(int code) {
+        return (code >>> ROW_SHIFT) & MAX_ROW;
+    }
+
+    public static int number(int code) {
+        return code & MAX_NUMBER;
+    }
+
+    public static String toSeatId(int code) {
+        return section(code) + "-" + row(code) + "-" + number(code);
+    }
+
+    /**
+     * Parses a "section-row-number" seat id without allocating.
+     *
+     * @return the packed code, or -1 if seatId is not in that form or out of range
+     */
+    public static int parse(String seatId) {
+        if (seatId == null) {
+            return -1;
+        }
+        int code = 0;
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i <= seatId.length(); i++) {
+            char c = i < seatId.length() ? seatId.charAt(i) : '-';
+            if (c >= '0' && c <= '9') {
+                // Reject leading zeros so each code has exactly one id
+                if (value == 0) {
+                    return -1;
+                }
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > MAX_NUMBER) {
+                    return -1;
+                }
+            } else if (c == '-' && value >= 0 && part < 3) {
+                int limit = part == 0 ? MAX_SECTION : part == 1 ? MAX_ROW : MAX_NUMBER;
+                if (value > limit) {
+                    return -1;
+                }
+                code = part == 0 ? value << SECTION_SHIFT : part == 1 ? code | (value << ROW_SHIFT) : code | value;
+                part++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        return part == 3 ? code : -1;
+    }
+
+}
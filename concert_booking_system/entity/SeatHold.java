@@ -0,0 +1,95 @@
+package concert_booking_system.entity;
+
+import concert_booking_system.enums.HoldStatus;
+import concert_booking_system.scheduler.HashedTimerWheel;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Seats moved to SELECTED for one buyer until confirmed, released or expired.
+ * Status changes go through compareAndSetStatus so confirm, release and the
+ * expiry sweeper can race safely: exactly one of them wins an ACTIVE hold.
+ */
+public class SeatHold {
+
+    private final String holdId;
+    private final String userId;
+    private final String eventId;
+    private final List<Seat> seats;
+    private final int[] slots;
+    private final long totalPrice;
+    private final long expiresAt;
+    private final AtomicReference<HoldStatus> status;
+    // Pending expiry on the timer wheel; cancelled once the hold ends another way
+    private volatile HashedTimerWheel.Timeout expiry;
+
+    public SeatHold(String holdId,
+                    String userId,
+                    String eventId,
+                    List<Seat> seats,
+                    int[] slots,
+                    long totalPrice,
+                    long expiresAt) {
+        this.holdId = holdId;
+        this.userId = userId;
+        this.eventId = eventId;
+        this.seats = seats;
+        this.slots = slots;
+        this.totalPrice = totalPrice;
+        this.expiresAt = expiresAt;
+        this.status = new AtomicReference<>(HoldStatus.ACTIVE);
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public List<Seat> getSeats() {
+        return seats;
+    }
+
+    public int[] getSlots() {
+        return slots;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public HoldStatus getStatus() {
+        return status.get();
+    }
+
+    public boolean compareAndSetStatus(HoldStatus expected, HoldStatus next) {
+        return status.compareAndSet(expected, next);
+    }
+
+    public void setExpiry(HashedTimerWheel.Timeout expiry) {
+        this.expiry = expiry;
+    }
+
+    /**
+     * Drops the pending expiry timer, so the wheel stops holding on to this hold.
+     */
+    public void cancelExpiry() {
+        HashedTimerWheel.Timeout timeout = expiry;
+        if (timeout != null) {
+            timeout.cancel();
+            expiry = null;
+        }
+    }
+
+}
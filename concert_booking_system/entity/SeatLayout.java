@@ -0,0 +1,328 @@
+package concert_booking_system.entity;
+
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.enums.SeatType;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a venue's seats.
+ *
+ * Every seat gets a dense int slot (its position in the layout) and the
+ * seatId -> slot index is built once per snapshot, so lookups on the booking
+ * path are plain map reads with no per-call allocation. Venue publishes a new
+ * snapshot on every seat change (copy-on-write), so each change costs O(seats);
+ * batch changes through Venue.addSeats/removeSeats.
+ *
+ * A layout is stored one of two ways:
+ *   - OBJECT: one Seat per slot plus a seatId -> slot map (any seat id)
+ *   - COMPACT (ofCodes): a sorted int[] of SeatCodes and one attribute byte per
+ *     seat, about 5 bytes a seat. The slot is found by parsing the id and binary
+ *     searching the codes. seatAt/getSeats hand out Seat views built on demand;
+ *     they are detached copies, so changes go through Venue.addSeat/removeSeat.
+ */
+public final class SeatLayout {
+
+    // Attribute byte of a compact seat: type ordinal in the low nibble, status in the high
+    private static final int TYPE_MASK = 0x0F;
+    private static final int STATUS_SHIFT = 4;
+    private static final SeatType[] TYPES = SeatType.values();
+    private static final SeatStatus[] STATES = SeatStatus.values();
+
+    // OBJECT form
+    private final Seat[] seats;
+    private final Map<String, Integer> slotsBySeatId;
+    // COMPACT form
+    private final int[] codes;
+    private final byte[] attributes;
+    private final List<Seat> seatsView;
+
+    SeatLayout(Seat[] seats) {
+        Map<String, Integer> slots = new HashMap<>(seats.length * 2);
+        for (int slot = 0; slot < seats.length; slot++) {
+            Seat seat = seats[slot];
+            if (seat == null || seat.getSeatId() == null) {
+                throw new IllegalArgumentException("Seat and seat ID cannot be null");
+            }
+            if (slots.putIfAbsent(seat.getSeatId(), slot) != null) {
+                throw new IllegalArgumentException("Duplicate seat ID in venue: " + seat.getSeatId());
+            }
+        }
+        this.seats = seats;
+        this.slotsBySeatId = slots;
+        this.codes = null;
+        this.attributes = null;
+        this.seatsView = Collections.unmodifiableList(Arrays.asList(seats));
+    }
+
+    private SeatLayout(int[] codes, byte[] attributes) {
+        this.seats = null;
+        this.slotsBySeatId = null;
+        this.codes = codes;
+        this.attributes = attributes;
+        this.seatsView = new AbstractList<>() {
+            @Override
+            public Seat get(int slot) {
+                return seatAt(slot);
+            }
+
+            @Override
+            public int size() {
+                return codes.length;
+            }
+        };
+    }
+
+    /**
+     * Builds a compact layout for a large venue. Seats are ordered by code
+     * (section, row, number), so slot order follows the physical seat map.
+     *
+     * @param seatCodes packed SeatCodes, no duplicates
+     * @param seatTypes type of each seat, parallel to seatCodes (null means REGULAR)
+     */
+    public static SeatLayout ofCodes(int[] seatCodes, SeatType[] seatTypes) {
+        if (seatCodes == null || seatTypes == null || seatCodes.length != seatTypes.length) {
+            throw new IllegalArgumentException("Seat codes and seat types must be parallel arrays");
+        }
+        long[] sorted = new long[seatCodes.length];
+        for (int i = 0; i < seatCodes.length; i++) {
+            if (seatCodes[i] < 0) {
+                throw new IllegalArgumentException("Invalid seat code: " + seatCodes[i]);
+            }
+            SeatType type = seatTypes[i] == null ? SeatType.REGULAR : seatTypes[i];
+            sorted[i] = ((long) seatCodes[i] << 8) | attribute(type, SeatStatus.AVAILABLE);
+        }
+        Arrays.sort(sorted);
+        int[] codes = new int[sorted.length];
+        byte[] attributes = new byte[sorted.length];
+        for (int slot = 0; slot < sorted.length; slot++) {
+            codes[slot] = (int) (sorted[slot] >>> 8);
+            attributes[slot] = (byte) sorted[slot];
+            if (slot > 0 && codes[slot] == codes[slot - 1]) {
+                throw new IllegalArgumentException("Duplicate seat ID in venue: " + SeatCode.toSeatId(codes[slot]));
+            }
+        }
+        return new SeatLayout(codes, attributes);
+    }
+
+    public int size() {
+        return codes == null ? seats.length : codes.length;
+    }
+
+    public boolean isCompact() {
+        return codes != null;
+    }
+
+    /**
+     * @return dense slot of the seat, or -1 if the seat is not part of this layout
+     */
+    public int slotOf(String seatId) {
+        if (codes != null) {
+            int code = SeatCode.parse(seatId);
+            int slot = code < 0 ? -1 : Arrays.binarySearch(codes, code);
+            return slot < 0 ? -1 : slot;
+        }
+        Integer slot = slotsBySeatId.get(seatId);
+        return slot == null ? -1 : slot;
+    }
+
+    public Seat seatAt(int slot) {
+        if (codes != null) {
+            return new Seat(SeatCode.toSeatId(codes[slot]), seatTypeAt(slot), seatStatusAt(slot));
+        }
+        return seats[slot];
+    }
+
+    /**
+     * Seat type without materializing a Seat; null types read as REGULAR.
+     */
+    public SeatType seatTypeAt(int slot) {
+        if (codes != null) {
+            return TYPES[attributes[slot] & TYPE_MASK];
+        }
+        SeatType type = seats[slot].getSeatType();
+        return type == null ? SeatType.REGULAR : type;
+    }
+
+    /**
+     * Venue-level status (e.g. UNDER_MAINTENANCE) without materializing a Seat.
+     */
+    public SeatStatus seatStatusAt(int slot) {
+        if (codes != null) {
+            return STATES[(attributes[slot] & 0xFF) >>> STATUS_SHIFT];
+        }
+        return seats[slot].getSeatStatus();
+    }
+
+    /**
+     * @return the seat's SeatCode, or -1 if its id is not in section-row-number form
+     */
+    public int codeAt(int slot) {
+        return codes != null ? codes[slot] : SeatCode.parse(seats[slot].getSeatId());
+    }
+
+    /**
+     * 64-bit hash of the seat ids in slot order: two layouts that map the same ids to
+     * the same slots share it. Lets persisted per-slot state detect a changed venue.
+     */
+    public long fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        for (int slot = 0; slot < size(); slot++) {
+            String seatId = codes != null ? SeatCode.toSeatId(codes[slot]) : seats[slot].getSeatId();
+            for (int i = 0; i < seatId.length(); i++) {
+                hash = (hash ^ seatId.charAt(i)) * 0x100000001b3L;
+            }
+            // Separator, so ("A1", "2") and ("A", "12") differ
+            hash = (hash ^ 0xFFFF) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public Seat getSeat(String seatId) {
+        int slot = slotOf(seatId);
+        return slot < 0 ? null : seatAt(slot);
+    }
+
+    public List<Seat> getSeats() {
+        return seatsView;
+    }
+
+    /**
+     * Layout of just the given slots, kept in the same form as this one.
+     *
+     * @param slots ascending slots of this layout
+     */
+    public SeatLayout subset(int[] slots) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] < 0 || slots[i] >= size() || (i > 0 && slots[i] <= slots[i - 1])) {
+                throw new IllegalArgumentException("Slots must be ascending and within the layout");
+            }
+        }
+        if (codes != null) {
+            int[] subCodes = new int[slots.length];
+            byte[] subAttributes = new byte[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                subCodes[i] = codes[slots[i]];
+                subAttributes[i] = attributes[slots[i]];
+            }
+            return new SeatLayout(subCodes, subAttributes);
+        }
+        Seat[] subSeats = new Seat[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            subSeats[i] = seats[slots[i]];
+        }
+        return new SeatLayout(subSeats);
+    }
+
+    SeatLayout withSeat(Seat seat) {
+        return withSeats(Collections.singletonList(seat));
+    }
+
+    SeatLayout withoutSeat(String seatId) {
+        return withoutSeats(Collections.singletonList(seatId));
+    }
+
+    /**
+     * One copy for the whole batch: O(seats + added log added), where adding the same
+     * seats one call at a time would copy the layout (and rebuild its index) per seat.
+     */
+    SeatLayout withSeats(Collection<Seat> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        if (codes == null) {
+            Seat[] next = Arrays.copyOf(seats, seats.length + added.size());
+            int slot = seats.length;
+            for (Seat seat : added) {
+                next[slot++] = seat;
+            }
+            // The constructor rejects null and duplicate seats
+            return new SeatLayout(next);
+        }
+        long[] sorted = new long[added.size()];
+        int i = 0;
+        for (Seat seat : added) {
+            if (seat == null || seat.getSeatId() == null) {
+                throw new IllegalArgumentException("Seat and seat ID cannot be null");
+            }
+            int code = SeatCode.parse(seat.getSeatId());
+            if (code < 0) {
+                throw new IllegalArgumentException("Compact venue seats need section-row-number IDs: " + seat.getSeatId());
+            }
+            SeatType type = seat.getSeatType() == null ? SeatType.REGULAR : seat.getSeatType();
+            SeatStatus status = seat.getSeatStatus() == null ? SeatStatus.AVAILABLE : seat.getSeatStatus();
+            sorted[i++] = ((long) code << 8) | (attribute(type, status) & 0xFF);
+        }
+        Arrays.sort(sorted);
+        // Merge two sorted code lists
+        int[] nextCodes = new int[codes.length + sorted.length];
+        byte[] nextAttributes = new byte[nextCodes.length];
+        int from = 0;
+        int at = 0;
+        for (long entry : sorted) {
+            int code = (int) (entry >>> 8);
+            while (from < codes.length && codes[from] < code) {
+                nextCodes[at] = codes[from];
+                nextAttributes[at++] = attributes[from++];
+            }
+            if ((from < codes.length && codes[from] == code) || (at > 0 && nextCodes[at - 1] == code)) {
+                throw new IllegalArgumentException("Duplicate seat ID in venue: " + SeatCode.toSeatId(code));
+            }
+            nextCodes[at] = code;
+            nextAttributes[at++] = (byte) entry;
+        }
+        System.arraycopy(codes, from, nextCodes, at, codes.length - from);
+        System.arraycopy(attributes, from, nextAttributes, at, codes.length - from);
+        return new SeatLayout(nextCodes, nextAttributes);
+    }
+
+    /**
+     * One copy for the whole batch; ids not in the layout are ignored.
+     */
+    SeatLayout withoutSeats(Collection<String> seatIds) {
+        boolean[] dropped = new boolean[size()];
+        int count = 0;
+        for (String seatId : seatIds) {
+            int slot = slotOf(seatId);
+            if (slot >= 0 && !dropped[slot]) {
+                dropped[slot] = true;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return this;
+        }
+        int remaining = size() - count;
+        if (codes != null) {
+            int[] nextCodes = new int[remaining];
+            byte[] nextAttributes = new byte[remaining];
+            int at = 0;
+            for (int slot = 0; slot < codes.length; slot++) {
+                if (!dropped[slot]) {
+                    nextCodes[at] = codes[slot];
+                    nextAttributes[at++] = attributes[slot];
+                }
+            }
+            return new SeatLayout(nextCodes, nextAttributes);
+        }
+        Seat[] next = new Seat[remaining];
+        int at = 0;
+        for (int slot = 0; slot < seats.length; slot++) {
+            if (!dropped[slot]) {
+                next[at++] = seats[slot];
+            }
+        }
+        return new SeatLayout(next);
+    }
+
+    private static byte attribute(SeatType type, SeatStatus status) {
+        return (byte) ((status.ordinal() << STATUS_SHIFT) | type.ordinal());
+    }
+
+}
@@ -0,0 +1,44 @@
+package concert_booking_system.entity;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns strings as dense int codes, so millions of records can share one copy
+ * of each user or event id. Codes are never reused or removed.
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Guarded by this for writes; readers only index codes they were handed
+    private volatile String[] names = new String[64];
+    private int size;
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = value;
+            // Publish the name before the code can be handed out
+            names = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    String decode(int code) {
+        return names[code];
+    }
+
+}
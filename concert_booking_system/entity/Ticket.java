@@ -7,15 +7,27 @@ import java.util.List;
 import static concert_booking_system.enums.TicketStatus.PENDING;
 
 
+/**
+ * A ticket, in one of two forms:
+ *   - pending: built by the booking flow with its own fields, handed to the
+ *     payment gateway before anything is stored
+ *   - stored: a view over a TicketStore row (returned once the booking commits);
+ *     every view of the same row reads and writes the same state and is equal
+ */
 public class Ticket {
 
+    // Pending form
     private final String ticketId;
     private final String userId;
     private final String eventId;
     private final List<Seat> bookedSeats;
     private final long totalPrice;
     private final long bookingTimestamp;
-    private TicketStatus ticketStatus;
+    private volatile TicketStatus ticketStatus;
+    private volatile boolean durable = true;
+    // Stored form
+    private final TicketStore store;
+    private final int row;
 
     public Ticket(String ticketId,
                   String userId,
@@ -30,38 +42,117 @@ public class Ticket {
         this.totalPrice = totalPrice;
         this.bookingTimestamp = bookingTimestamp;
         this.ticketStatus = PENDING;
+        this.store = null;
+        this.row = -1;
+    }
+
+    Ticket(TicketStore store, int row) {
+        this.ticketId = null;
+        this.userId = null;
+        this.eventId = null;
+        this.bookedSeats = null;
+        this.totalPrice = 0;
+        this.bookingTimestamp = 0;
+        this.store = store;
+        this.row = row;
     }
 
     public String getTicketId() {
-        return ticketId;
+        return store == null ? ticketId : store.ticketId(row);
     }
 
     public String getUserId() {
-        return userId;
+        return store == null ? userId : store.userId(row);
     }
 
     public String getEventId() {
-        return eventId;
+        return store == null ? eventId : store.eventId(row);
     }
 
+    /**
+     * For a stored ticket the Seats are rebuilt from the event's layout on every call;
+     * a cancelled ticket restored after its event was removed has none.
+     */
     public List<Seat> getBookedSeats() {
-        return bookedSeats;
+        return store == null ? bookedSeats : store.seats(row);
+    }
+
+    /**
+     * @return seat slots in the event's layout, or null for a pending ticket
+     */
+    public int[] getSlots() {
+        return store == null ? null : store.slots(row);
     }
 
     public long getTotalPrice() {
-        return totalPrice;
+        return store == null ? totalPrice : store.totalPrice(row);
     }
 
     public long getBookingTimestamp() {
-        return bookingTimestamp;
+        return store == null ? bookingTimestamp : store.bookingTimestamp(row);
     }
 
     public TicketStatus getTicketStatus() {
-        return ticketStatus;
+        return store == null ? ticketStatus : store.status(row);
     }
 
     public void setTicketStatus(TicketStatus ticketStatus) {
-        this.ticketStatus = ticketStatus;
+        if (store == null) {
+            this.ticketStatus = ticketStatus;
+        } else {
+            store.setStatus(row, ticketStatus);
+        }
+    }
+
+    /**
+     * False while the booking is applied in memory but its journal record failed to
+     * reach disk; a crash before the next successful checkpoint would lose it.
+     */
+    public boolean isDurable() {
+        return store == null ? durable : store.isDurable(row);
+    }
+
+    public void setDurable(boolean durable) {
+        if (store == null) {
+            this.durable = durable;
+        } else {
+            store.setDurable(row, durable);
+        }
+    }
+
+    /**
+     * Atomically moves the ticket from expected to next; exactly one of several
+     * racing callers (on any views of the ticket) wins.
+     */
+    public boolean compareAndSetStatus(TicketStatus expected, TicketStatus next) {
+        if (store != null) {
+            return store.compareAndSetStatus(row, expected, next);
+        }
+        synchronized (this) {
+            if (ticketStatus != expected) {
+                return false;
+            }
+            ticketStatus = next;
+            return true;
+        }
+    }
+
+    // Row in the store; -1 for a detached ticket
+    int row() {
+        return store == null ? -1 : row;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return store != null && o instanceof Ticket other && other.store == store && other.row == row;
+    }
+
+    @Override
+    public int hashCode() {
+        return store != null ? Integer.hashCode(row) : System.identityHashCode(this);
     }
 
 }
@@ -0,0 +1,146 @@
+package concert_booking_system.entity;
+
+/**
+ * Primitive map from a 128-bit ticket id to its row in a TicketStore.
+ *
+ * SEGMENTS x OPEN ADDRESSING:
+ * ===========================
+ * - The id picks one of SEGMENTS segments; each segment is a linear-probing
+ *   table of parallel long/long/int arrays guarded by its own monitor, so
+ *   bookings on different segments never contend
+ * - ~20 bytes per entry at the 0.75 load factor, with no boxed keys or entry
+ *   objects (a HashMap<String, Ticket> entry costs well over 100)
+ * - Removal shifts the following cluster back, so no tombstones build up
+ */
+final class TicketIdIndex {
+
+    private static final int SEGMENTS = 64;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Segment[] segments;
+
+    TicketIdIndex() {
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return false if the id is already present (the existing row is kept)
+     */
+    boolean put(long hi, long lo, int row) {
+        return segmentFor(hi, lo).put(hi, lo, row);
+    }
+
+    /**
+     * @return the row, or -1 if the id is not present
+     */
+    int get(long hi, long lo) {
+        return segmentFor(hi, lo).get(hi, lo);
+    }
+
+    /**
+     * @return the removed row, or -1 if the id was not present
+     */
+    int remove(long hi, long lo) {
+        return segmentFor(hi, lo).remove(hi, lo);
+    }
+
+    private Segment segmentFor(long hi, long lo) {
+        return segments[(int) (mix(hi, lo) >>> 58)];
+    }
+
+    private static long mix(long hi, long lo) {
+        long h = hi ^ Long.rotateLeft(lo, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Segment {
+        private long[] his = new long[INITIAL_CAPACITY];
+        private long[] los = new long[INITIAL_CAPACITY];
+        // row + 1; 0 marks an empty slot
+        private int[] rows = new int[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized boolean put(long hi, long lo, int row) {
+            if ((size + 1) * 4 > rows.length * 3) {
+                resize();
+            }
+            int mask = rows.length - 1;
+            for (int i = (int) mix(hi, lo) & mask; ; i = (i + 1) & mask) {
+                if (rows[i] == 0) {
+                    his[i] = hi;
+                    los[i] = lo;
+                    rows[i] = row + 1;
+                    size++;
+                    return true;
+                }
+                if (his[i] == hi && los[i] == lo) {
+                    return false;
+                }
+            }
+        }
+
+        synchronized int get(long hi, long lo) {
+            int mask = rows.length - 1;
+            for (int i = (int) mix(hi, lo) & mask; rows[i] != 0; i = (i + 1) & mask) {
+                if (his[i] == hi && los[i] == lo) {
+                    return rows[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        synchronized int remove(long hi, long lo) {
+            int mask = rows.length - 1;
+            int i = (int) mix(hi, lo) & mask;
+            while (rows[i] != 0 && (his[i] != hi || los[i] != lo)) {
+                i = (i + 1) & mask;
+            }
+            if (rows[i] == 0) {
+                return -1;
+            }
+            int removed = rows[i] - 1;
+            // Backward-shift: move later entries of the cluster into the gap when their home allows it
+            int gap = i;
+            for (int j = (gap + 1) & mask; rows[j] != 0; j = (j + 1) & mask) {
+                int home = (int) mix(his[j], los[j]) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    his[gap] = his[j];
+                    los[gap] = los[j];
+                    rows[gap] = rows[j];
+                    gap = j;
+                }
+            }
+            rows[gap] = 0;
+            size--;
+            return removed;
+        }
+
+        private void resize() {
+            long[] oldHis = his;
+            long[] oldLos = los;
+            int[] oldRows = rows;
+            his = new long[oldRows.length * 2];
+            los = new long[oldRows.length * 2];
+            rows = new int[oldRows.length * 2];
+            int mask = rows.length - 1;
+            for (int j = 0; j < oldRows.length; j++) {
+                if (oldRows[j] != 0) {
+                    int i = (int) mix(oldHis[j], oldLos[j]) & mask;
+                    while (rows[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    his[i] = oldHis[j];
+                    los[i] = oldLos[j];
+                    rows[i] = oldRows[j];
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,326 @@
+package concert_booking_system.entity;
+
+import concert_booking_system.enums.TicketStatus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * TicketStore - Column-oriented storage for booked tickets
+ *
+ * LAYOUT:
+ * =======
+ * One row per ticket, in chunks of CHUNK_SIZE rows. Each chunk holds parallel
+ * primitive columns:
+ *   id      two longs (the 128-bit ticket id; its text form is only built on demand)
+ *   user    int code into a StringDictionary (each user id string stored once)
+ *   event   int code into a StringDictionary
+ *   price, time   longs
+ *   slots   int[] of seat slots, and the SeatLayout they index (the layout of
+ *           the event instance the ticket was booked on; null when unknown, for a
+ *           ticket restored after its event was removed)
+ *   state   byte: TicketStatus ordinal + 1, 0 while the row is being written, plus
+ *           the removed and not-durable flags
+ * A ticket costs roughly 64 bytes plus 4 per seat, against several hundred for a
+ * Ticket with a UUID string, its own id strings and a List of Seat objects.
+ *
+ * Lookups by id go through a TicketIdIndex (primitive, segmented). Ticket objects
+ * handed out are views over a row: cheap to create, equal when they share a row,
+ * and Seats are rebuilt from the event's layout only when asked for.
+ *
+ * Rows are never reused, so row order is the order tickets were stored in. A
+ * removed ticket's seats are dropped at once, and a chunk is released when all of
+ * its rows are removed; views of a removed ticket must not be used after remove.
+ */
+public class TicketStore {
+
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int UNWRITTEN = 0;
+    private static final int REMOVED_FLAG = 0x40;
+    // Set while the ticket's journal record failed to reach disk
+    private static final int NOT_DURABLE_FLAG = 0x20;
+    private static final int FLAGS = REMOVED_FLAG | NOT_DURABLE_FLAG;
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+    private static final VarHandle STATE = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    /**
+     * Orders views of one store by row, i.e. in the order the tickets were stored -
+     * the order their records must be replayed in.
+     */
+    public static final Comparator<Ticket> ROW_ORDER = Comparator.comparingInt(Ticket::row);
+
+    private final StringDictionary users = new StringDictionary();
+    private final StringDictionary events = new StringDictionary();
+    private final TicketIdIndex index = new TicketIdIndex();
+    private final AtomicInteger nextRow = new AtomicInteger();
+    private final AtomicInteger liveCount = new AtomicInteger();
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    /**
+     * Stores a ticket and returns its view.
+     *
+     * @param ticketId UUID-form id (see Ids.randomId)
+     * @param layout   layout the slots index, or null if unknown (the ticket then has no Seats)
+     * @throws IllegalArgumentException if the id is malformed or already stored
+     */
+    public Ticket add(String ticketId,
+                      String userId,
+                      String eventId,
+                      SeatLayout layout,
+                      int[] slots,
+                      long totalPrice,
+                      long bookingTimestamp,
+                      TicketStatus status) {
+        UUID id = parse(ticketId);
+        if (id == null) {
+            throw new IllegalArgumentException("Malformed ticket ID: " + ticketId);
+        }
+        int row = nextRow.getAndIncrement();
+        Chunk chunk = chunkFor(row);
+        int i = row & CHUNK_MASK;
+        chunk.idHi[i] = id.getMostSignificantBits();
+        chunk.idLo[i] = id.getLeastSignificantBits();
+        chunk.users[i] = users.encode(userId);
+        chunk.events[i] = events.encode(eventId);
+        chunk.prices[i] = totalPrice;
+        chunk.times[i] = bookingTimestamp;
+        chunk.slots[i] = slots;
+        chunk.layouts[i] = layout;
+        // Release: a reader that sees the state sees the whole row
+        STATE.setRelease(chunk.states, i, (byte) (status.ordinal() + 1));
+        if (!index.put(chunk.idHi[i], chunk.idLo[i], row)) {
+            STATE.setRelease(chunk.states, i, (byte) (status.ordinal() + 1 | REMOVED_FLAG));
+            retire(chunk, row);
+            throw new IllegalArgumentException("Duplicate ticket ID: " + ticketId);
+        }
+        liveCount.incrementAndGet();
+        return new Ticket(this, row);
+    }
+
+    /**
+     * @return the ticket's view, or null if no such ticket is stored
+     */
+    public Ticket get(String ticketId) {
+        UUID id = parse(ticketId);
+        int row = id == null ? -1 : index.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return row < 0 ? null : new Ticket(this, row);
+    }
+
+    public boolean contains(String ticketId) {
+        return get(ticketId) != null;
+    }
+
+    /**
+     * Forgets the ticket and frees its seats; its views must not be used afterwards.
+     *
+     * @return the removed ticket, or null if it was not stored
+     */
+    public Ticket remove(String ticketId) {
+        UUID id = parse(ticketId);
+        int row = id == null ? -1 : index.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (row < 0) {
+            return null;
+        }
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        int state;
+        do {
+            state = (byte) STATE.getAcquire(chunk.states, i);
+        } while (!STATE.compareAndSet(chunk.states, i, (byte) state, (byte) (state | REMOVED_FLAG)));
+        liveCount.decrementAndGet();
+        retire(chunk, row);
+        return new Ticket(this, row);
+    }
+
+    // Drops a removed row's seats; the last row of a chunk to go releases the chunk
+    private void retire(Chunk chunk, int row) {
+        chunk.slots[row & CHUNK_MASK] = null;
+        chunk.layouts[row & CHUNK_MASK] = null;
+        if (chunk.retired.incrementAndGet() == CHUNK_SIZE) {
+            // Every row of the chunk was written before it was retired, so add() never needs it again
+            synchronized (this) {
+                Chunk[] current = chunks;
+                current[row >>> CHUNK_SHIFT] = null;
+                chunks = current;
+            }
+        }
+    }
+
+    public int size() {
+        return liveCount.get();
+    }
+
+    /**
+     * Every stored ticket in row order, streamed lazily. Tickets added concurrently
+     * may or may not be included.
+     */
+    public Stream<Ticket> stream() {
+        return IntStream.range(0, nextRow.get()).filter(this::isLive).mapToObj(row -> new Ticket(this, row));
+    }
+
+    private boolean isLive(int row) {
+        Chunk[] current = chunks;
+        Chunk chunk = (row >>> CHUNK_SHIFT) < current.length ? current[row >>> CHUNK_SHIFT] : null;
+        if (chunk == null) {
+            return false;
+        }
+        int state = (byte) STATE.getAcquire(chunk.states, row & CHUNK_MASK);
+        return state != UNWRITTEN && (state & REMOVED_FLAG) == 0;
+    }
+
+    // Row accessors for Ticket views
+
+    String ticketId(int row) {
+        Chunk chunk = chunk(row);
+        return new UUID(chunk.idHi[row & CHUNK_MASK], chunk.idLo[row & CHUNK_MASK]).toString();
+    }
+
+    String userId(int row) {
+        return users.decode(chunk(row).users[row & CHUNK_MASK]);
+    }
+
+    String eventId(int row) {
+        return events.decode(chunk(row).events[row & CHUNK_MASK]);
+    }
+
+    int[] slots(int row) {
+        return liveSlots(chunk(row), row).clone();
+    }
+
+    List<Seat> seats(int row) {
+        Chunk chunk = chunk(row);
+        int[] slots = liveSlots(chunk, row);
+        SeatLayout layout = chunk.layouts[row & CHUNK_MASK];
+        if (layout == null) {
+            return new ArrayList<>();
+        }
+        List<Seat> seats = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            seats.add(layout.seatAt(slot));
+        }
+        return seats;
+    }
+
+    long totalPrice(int row) {
+        return chunk(row).prices[row & CHUNK_MASK];
+    }
+
+    long bookingTimestamp(int row) {
+        return chunk(row).times[row & CHUNK_MASK];
+    }
+
+    TicketStatus status(int row) {
+        int state = (byte) STATE.getAcquire(chunk(row).states, row & CHUNK_MASK);
+        return STATUSES[(state & ~FLAGS) - 1];
+    }
+
+    void setStatus(int row, TicketStatus status) {
+        TicketStatus current;
+        do {
+            current = status(row);
+        } while (!compareAndSetStatus(row, current, status));
+    }
+
+    boolean compareAndSetStatus(int row, TicketStatus expected, TicketStatus next) {
+        byte[] states = chunk(row).states;
+        int i = row & CHUNK_MASK;
+        while (true) {
+            int state = (byte) STATE.getAcquire(states, i);
+            if ((state & ~FLAGS) != expected.ordinal() + 1) {
+                return false;
+            }
+            // Keep the flags; only the status part changes
+            if (STATE.compareAndSet(states, i, (byte) state,
+                    (byte) ((state & FLAGS) | (next.ordinal() + 1)))) {
+                return true;
+            }
+        }
+    }
+
+    boolean isDurable(int row) {
+        int state = (byte) STATE.getAcquire(chunk(row).states, row & CHUNK_MASK);
+        return (state & NOT_DURABLE_FLAG) == 0;
+    }
+
+    void setDurable(int row, boolean durable) {
+        byte[] states = chunk(row).states;
+        int i = row & CHUNK_MASK;
+        int state;
+        do {
+            state = (byte) STATE.getAcquire(states, i);
+        } while (!STATE.compareAndSet(states, i, (byte) state,
+                (byte) (durable ? state & ~NOT_DURABLE_FLAG : state | NOT_DURABLE_FLAG)));
+    }
+
+    private Chunk chunk(int row) {
+        Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+        if (chunk == null) {
+            throw new IllegalStateException("Ticket was removed from the store");
+        }
+        return chunk;
+    }
+
+    private static int[] liveSlots(Chunk chunk, int row) {
+        int[] slots = chunk.slots[row & CHUNK_MASK];
+        if (slots == null) {
+            throw new IllegalStateException("Ticket was removed from the store");
+        }
+        return slots;
+    }
+
+    private Chunk chunkFor(int row) {
+        int index = row >>> CHUNK_SHIFT;
+        Chunk[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (index >= current.length) {
+                Chunk[] grown = new Chunk[Math.max(index + 1, current.length * 2)];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            if (current[index] == null) {
+                current[index] = new Chunk();
+            }
+            chunks = current;
+            return current[index];
+        }
+    }
+
+    private static UUID parse(String ticketId) {
+        if (ticketId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(ticketId);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static final class Chunk {
+        private final long[] idHi = new long[CHUNK_SIZE];
+        private final long[] idLo = new long[CHUNK_SIZE];
+        private final int[] users = new int[CHUNK_SIZE];
+        private final int[] events = new int[CHUNK_SIZE];
+        private final long[] prices = new long[CHUNK_SIZE];
+        private final long[] times = new long[CHUNK_SIZE];
+        private final int[][] slots = new int[CHUNK_SIZE][];
+        private final SeatLayout[] layouts = new SeatLayout[CHUNK_SIZE];
+        private final byte[] states = new byte[CHUNK_SIZE];
+        // Rows removed (or rejected as duplicates) so far
+        private final AtomicInteger retired = new AtomicInteger();
+    }
+
+}
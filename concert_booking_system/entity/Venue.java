@@ -1,20 +1,32 @@
 package concert_booking_system.entity;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public class Venue {
 
     private final String venueId;
     private final String location;
-    private final List<Seat> seats;
+    // Copy-on-write: readers always see a complete, consistent seat index
+    private volatile SeatLayout layout;
 
     public Venue(String venueId, String location, List<Seat> seats) {
         this.venueId = venueId;
         this.location = location;
-        this.seats = Optional.ofNullable(seats)
-                .orElse(new ArrayList<>());
+        this.layout = new SeatLayout(seats == null ? new Seat[0] : seats.toArray(new Seat[0]));
+    }
+
+    /**
+     * For large venues: pass SeatLayout.ofCodes(...) to skip per-seat objects entirely.
+     */
+    public Venue(String venueId, String location, SeatLayout layout) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Seat layout cannot be null");
+        }
+        this.venueId = venueId;
+        this.location = location;
+        this.layout = layout;
     }
 
     public String getVenueId() {
@@ -26,15 +38,51 @@ public class Venue {
     }
 
     public List<Seat> getSeats() {
-        return seats;
+        return layout.getSeats();
+    }
+
+    public SeatLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * O(1) lookup against the current seat index.
+     */
+    public Seat getSeat(String seatId) {
+        return layout.getSeat(seatId);
+    }
+
+    /**
+     * Copies the whole layout, O(seats): fine for the odd change, but building a venue
+     * seat by seat is quadratic. Pass the seats to the constructor or use addSeats.
+     */
+    public synchronized void addSeat(Seat seat) {
+        layout = layout.withSeat(seat);
+    }
+
+    /**
+     * Copies the layout once for all the seats.
+     */
+    public synchronized void addSeats(Collection<Seat> seats) {
+        layout = layout.withSeats(seats);
     }
 
-    public void addSeat(Seat seat) {
-        seats.add(seat);
+    /**
+     * Copies the whole layout, O(seats); use removeSeats for many seats.
+     */
+    public synchronized void removeSeat(Seat seat) {
+        layout = layout.withoutSeat(seat.getSeatId());
     }
 
-    public void removeSeat(Seat seat) {
-        seats.remove(seat);
+    /**
+     * Copies the layout once for all the seats; seats not in the venue are ignored.
+     */
+    public synchronized void removeSeats(Collection<Seat> seats) {
+        List<String> seatIds = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            seatIds.add(seat.getSeatId());
+        }
+        layout = layout.withoutSeats(seatIds);
     }
 
 }
@@ -0,0 +1,8 @@
+package concert_booking_system.enums;
+
+public enum BookingMode {
+    // Caller threads reserve seats directly with CAS on the seat inventory
+    LOCK_FREE,
+    // Bookings and cancellations are queued to one writer thread per event
+    SINGLE_WRITER
+}
@@ -0,0 +1,9 @@
+package concert_booking_system.enums;
+
+public enum HoldStatus {
+    ACTIVE,
+    CONFIRMING,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
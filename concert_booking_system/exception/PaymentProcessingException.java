@@ -1,6 +1,8 @@
 package concert_booking_system.exception;
 
 public class PaymentProcessingException extends RuntimeException{
+    private static final long serialVersionUID = 1L;
+
     public PaymentProcessingException(String message) {
         super(message);
     }
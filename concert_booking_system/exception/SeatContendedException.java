@@ -0,0 +1,27 @@
+package concert_booking_system.exception;
+
+/**
+ * A requested seat is on hold by another buyer. Unlike a booked seat this can
+ * clear up (the hold may be released or expire), so the caller may retry.
+ */
+public class SeatContendedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String eventId;
+    private final String seatId;
+
+    public SeatContendedException(String eventId, String seatId, String message) {
+        super(message);
+        this.eventId = eventId;
+        this.seatId = seatId;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getSeatId() {
+        return seatId;
+    }
+}
@@ -0,0 +1,184 @@
+package concert_booking_system.idempotency;
+
+import concert_booking_system.scheduler.HashedTimerWheel;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IdempotencyCache - Remembers the outcome of requests by client-chosen key, so a
+ * retried request gets the original result instead of running again
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. CLAIM:
+ *    - The first caller for a key puts a fresh future into the map (putIfAbsent)
+ *      and becomes its owner: it runs the request and completes the future
+ *    - Every later caller for the key gets that same future, whether the request
+ *      is still running or already done; duplicates never reach the request path
+ *    - A key comes with a fingerprint of the request it was first used for; the
+ *      same key with another request is rejected rather than answered wrongly
+ *
+ * 2. OUTCOME:
+ *    - Success: the entry stays for ttlMillis after completion (timer wheel), so
+ *      retries within that window are answered from memory
+ *    - Failure: waiting duplicates share the failure, then the entry is dropped,
+ *      so a later retry runs the request again. The owner reports a failure only
+ *      for a request that left nothing behind; one that took effect before it
+ *      failed must be completed with its result, or a retry would repeat it
+ *
+ * 3. BOUND:
+ *    - At most maxEntries keys; past that the oldest completed entries are evicted
+ *      first. Running requests are never evicted, since that would let a
+ *      duplicate through
+ *
+ * Entries live in memory only; keys do not survive a restart.
+ */
+public class IdempotencyCache<V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final HashedTimerWheel expiryWheel;
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    // Claim order, oldest first; may hold entries already expired or dropped
+    private final Queue<Entry<V>> order = new ConcurrentLinkedQueue<>();
+    // order's size (ConcurrentLinkedQueue.size() walks the queue)
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public IdempotencyCache(int maxEntries, long ttlMillis, HashedTimerWheel expiryWheel) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.expiryWheel = expiryWheel;
+    }
+
+    /**
+     * @param key         idempotency key, already scoped to its caller
+     * @param fingerprint what the request is (compared with equals)
+     * @throws IllegalArgumentException if the key was used for a different request
+     */
+    public Claim<V> claim(String key, Object fingerprint) {
+        Entry<V> fresh = new Entry<>(key, fingerprint);
+        Entry<V> existing = entries.putIfAbsent(key, fresh);
+        if (existing != null) {
+            if (!Objects.equals(existing.fingerprint, fingerprint)) {
+                throw new IllegalArgumentException("Idempotency key was already used for a different request");
+            }
+            return new Claim<>(this, existing, false);
+        }
+        order.offer(fresh);
+        queued.incrementAndGet();
+        trimStale();
+        if (entries.size() > maxEntries) {
+            evictOldest();
+        }
+        return new Claim<>(this, fresh, true);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void succeeded(Entry<V> entry, V value) {
+        entry.future.complete(value);
+        expiryWheel.schedule(() -> entries.remove(entry.key, entry), ttlMillis);
+    }
+
+    private void failed(Entry<V> entry, Throwable failure) {
+        entries.remove(entry.key, entry);
+        entry.future.completeExceptionally(failure);
+    }
+
+    // Entries mostly expire in claim order, so the stale ones gather at the head
+    private void trimStale() {
+        Entry<V> head;
+        while ((head = order.peek()) != null && entries.get(head.key) != head) {
+            if (order.remove(head)) {
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    private void evictOldest() {
+        // One pass at most: running entries go back to the tail
+        for (int budget = queued.get(); budget > 0 && entries.size() > maxEntries; budget--) {
+            Entry<V> oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.get(oldest.key) != oldest) {
+                continue;
+            }
+            if (oldest.future.isDone()) {
+                entries.remove(oldest.key, oldest);
+            } else {
+                order.offer(oldest);
+                queued.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final String key;
+        private final Object fingerprint;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private Entry(String key, Object fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Result of claim(): the owner runs the request and reports its outcome exactly
+     * once; everyone else just waits on future().
+     */
+    public static final class Claim<V> {
+        private final IdempotencyCache<V> cache;
+        private final Entry<V> entry;
+        private final boolean owner;
+
+        private Claim(IdempotencyCache<V> cache, Entry<V> entry, boolean owner) {
+            this.cache = cache;
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        public boolean isOwner() {
+            return owner;
+        }
+
+        public CompletableFuture<V> future() {
+            return entry.future;
+        }
+
+        public void complete(V value) {
+            requireOwner();
+            cache.succeeded(entry, value);
+        }
+
+        public void fail(Throwable failure) {
+            requireOwner();
+            cache.failed(entry, failure);
+        }
+
+        private void requireOwner() {
+            if (!owner) {
+                throw new IllegalStateException("Only the owner of a claim reports its outcome");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+package concert_booking_system.index;
+
+import concert_booking_system.entity.EventShow;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EventCatalog - Read-optimized indexes over events for browse queries
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. INDEXES:
+ *    - By date: every dated event in one array sorted by (eventDate, eventId),
+ *      with the dates alongside as a primitive long[]
+ *    - By venue: the same kind of sorted array per venueId
+ *    - Range queries ("between A and B", "upcoming", "at venue V between A and B")
+ *      are two binary searches plus a copy of the result
+ *
+ * 2. COPY-ON-WRITE:
+ *    - All indexes live in one immutable Snapshot behind a volatile reference
+ *    - add/remove build a new Snapshot (one array copy for the date index and one
+ *      for the event's venue; other venues are shared) and publish it; writers
+ *      serialize on the catalog, readers never lock or retry
+ *    - A reader holding a Snapshot sees one consistent catalog for as many
+ *      queries as it runs on it
+ *
+ * Writes cost O(events) and reads O(log events + results): the right trade for a
+ * catalog browsed far more often than events are added. Events without a date are
+ * not indexed.
+ */
+public class EventCatalog {
+
+    private static final EventShow[] NO_EVENTS = new EventShow[0];
+    private static final long[] NO_DATES = new long[0];
+
+    private volatile Snapshot snapshot = new Snapshot(DateIndex.EMPTY, Collections.emptyMap());
+    // Writer-side view of what is indexed, to find an event's old entry on replace/remove. Guarded by this
+    private final Map<String, EventShow> indexed = new HashMap<>();
+
+    /**
+     * Indexes the event, replacing any event indexed under the same id.
+     */
+    public synchronized void add(EventShow event) {
+        remove(event.getEventId());
+        if (event.getEventDate() == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        String venueId = venueIdOf(event);
+        Map<String, DateIndex> byVenue = new HashMap<>(current.byVenue);
+        byVenue.put(venueId, byVenue.getOrDefault(venueId, DateIndex.EMPTY).with(event));
+        snapshot = new Snapshot(current.all.with(event), Collections.unmodifiableMap(byVenue));
+        indexed.put(event.getEventId(), event);
+    }
+
+    /**
+     * @return the event that was indexed under eventId, or null
+     */
+    public synchronized EventShow remove(String eventId) {
+        EventShow event = indexed.remove(eventId);
+        if (event == null) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        String venueId = venueIdOf(event);
+        Map<String, DateIndex> byVenue = new HashMap<>(current.byVenue);
+        DateIndex venueEvents = byVenue.get(venueId).without(event);
+        if (venueEvents.size() == 0) {
+            byVenue.remove(venueId);
+        } else {
+            byVenue.put(venueId, venueEvents);
+        }
+        snapshot = new Snapshot(current.all.without(event), Collections.unmodifiableMap(byVenue));
+        return event;
+    }
+
+    /**
+     * The catalog as of now; later adds and removes don't change it.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    private static String venueIdOf(EventShow event) {
+        return event.getVenue() == null ? "" : event.getVenue().getVenueId();
+    }
+
+    /**
+     * Immutable view of the catalog. All ranges are [fromMillis, toMillis) and results
+     * come in date order (eventId breaks ties).
+     */
+    public static final class Snapshot {
+        private final DateIndex all;
+        private final Map<String, DateIndex> byVenue;
+
+        private Snapshot(DateIndex all, Map<String, DateIndex> byVenue) {
+            this.all = all;
+            this.byVenue = byVenue;
+        }
+
+        public int size() {
+            return all.size();
+        }
+
+        public List<EventShow> between(long fromMillis, long toMillis) {
+            return all.range(fromMillis, toMillis, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @return up to limit events on or after fromMillis, soonest first
+         */
+        public List<EventShow> upcoming(long fromMillis, int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+            return all.range(fromMillis, Long.MAX_VALUE, limit);
+        }
+
+        public List<EventShow> atVenue(String venueId, long fromMillis, long toMillis) {
+            DateIndex venueEvents = byVenue.get(venueId);
+            return venueEvents == null ? Collections.emptyList()
+                    : venueEvents.range(fromMillis, toMillis, Integer.MAX_VALUE);
+        }
+    }
+
+    // Immutable array of events sorted by (date, eventId)
+    private static final class DateIndex {
+        private static final DateIndex EMPTY = new DateIndex(NO_EVENTS, NO_DATES);
+
+        private final EventShow[] events;
+        private final long[] dates;
+
+        private DateIndex(EventShow[] events, long[] dates) {
+            this.events = events;
+            this.dates = dates;
+        }
+
+        int size() {
+            return events.length;
+        }
+
+        DateIndex with(EventShow event) {
+            int at = -(find(event) + 1);
+            EventShow[] newEvents = new EventShow[events.length + 1];
+            long[] newDates = new long[dates.length + 1];
+            System.arraycopy(events, 0, newEvents, 0, at);
+            System.arraycopy(dates, 0, newDates, 0, at);
+            newEvents[at] = event;
+            newDates[at] = event.getEventDate();
+            System.arraycopy(events, at, newEvents, at + 1, events.length - at);
+            System.arraycopy(dates, at, newDates, at + 1, dates.length - at);
+            return new DateIndex(newEvents, newDates);
+        }
+
+        DateIndex without(EventShow event) {
+            int at = find(event);
+            if (at < 0) {
+                return this;
+            }
+            EventShow[] newEvents = new EventShow[events.length - 1];
+            long[] newDates = new long[dates.length - 1];
+            System.arraycopy(events, 0, newEvents, 0, at);
+            System.arraycopy(dates, 0, newDates, 0, at);
+            System.arraycopy(events, at + 1, newEvents, at, events.length - at - 1);
+            System.arraycopy(dates, at + 1, newDates, at, dates.length - at - 1);
+            return new DateIndex(newEvents, newDates);
+        }
+
+        List<EventShow> range(long fromMillis, long toMillis, int limit) {
+            int from = lowerBound(fromMillis);
+            int to = lowerBound(toMillis);
+            if (from >= to || limit == 0) {
+                return Collections.emptyList();
+            }
+            return Collections.unmodifiableList(Arrays.asList(
+                    Arrays.copyOfRange(events, from, (int) Math.min(to, (long) from + limit))));
+        }
+
+        // First index whose date is >= millis
+        private int lowerBound(long millis) {
+            int low = 0;
+            int high = dates.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (dates[mid] < millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Index of the event, or -(insertion point + 1) like Arrays.binarySearch
+        private int find(EventShow event) {
+            long date = event.getEventDate();
+            int low = 0;
+            int high = events.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = dates[mid] != date ? Long.compare(dates[mid], date)
+                        : events[mid].getEventId().compareTo(event.getEventId());
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+}
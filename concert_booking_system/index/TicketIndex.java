@@ -0,0 +1,114 @@
+package concert_booking_system.index;
+
+import concert_booking_system.entity.Ticket;
+import concert_booking_system.enums.TicketStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary indexes over booked tickets: by user, and by event + status.
+ *
+ * Every bucket is a concurrent set, so bookings and cancellations on different
+ * users/events never contend and lookups cost O(result size) instead of a scan
+ * of every ticket. A status change removes the ticket from its old bucket before
+ * adding it to the new one, so a concurrent reader may briefly miss it - but never
+ * sees it twice, or under a status it has already left.
+ */
+public class TicketIndex {
+
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    private final Map<String, Set<Ticket>> byUser = new ConcurrentHashMap<>();
+    // eventId -> one bucket per TicketStatus (ordinal)
+    private final Map<String, Set<Ticket>[]> byEvent = new ConcurrentHashMap<>();
+
+    public void add(Ticket ticket) {
+        // Add inside compute: removeEvent drops a user's set once it empties, and an add
+        // landing in a set that was just dropped would be lost
+        byUser.compute(ticket.getUserId(), (_, tickets) -> {
+            Set<Ticket> userTickets = tickets == null ? ConcurrentHashMap.newKeySet() : tickets;
+            userTickets.add(ticket);
+            return userTickets;
+        });
+        eventBuckets(ticket.getEventId())[ticket.getTicketStatus().ordinal()].add(ticket);
+    }
+
+    /**
+     * Call after the ticket's status has been changed from previous.
+     */
+    public void statusChanged(Ticket ticket, TicketStatus previous) {
+        Set<Ticket>[] buckets = eventBuckets(ticket.getEventId());
+        buckets[previous.ordinal()].remove(ticket);
+        buckets[ticket.getTicketStatus().ordinal()].add(ticket);
+    }
+
+    /**
+     * Drops every ticket of the event from both indexes.
+     *
+     * @return the tickets that were indexed under the event
+     */
+    public List<Ticket> removeEvent(String eventId) {
+        Set<Ticket>[] buckets = byEvent.remove(eventId);
+        if (buckets == null) {
+            return Collections.emptyList();
+        }
+        List<Ticket> removed = new ArrayList<>();
+        for (Set<Ticket> bucket : buckets) {
+            removed.addAll(bucket);
+        }
+        for (Ticket ticket : removed) {
+            // Drop the user's bucket with their last ticket so users of removed events don't pile up
+            byUser.computeIfPresent(ticket.getUserId(), (_, tickets) -> {
+                tickets.remove(ticket);
+                return tickets.isEmpty() ? null : tickets;
+            });
+        }
+        return removed;
+    }
+
+    public List<Ticket> forUser(String userId, TicketStatus status) {
+        Set<Ticket> tickets = byUser.get(userId);
+        if (tickets == null) {
+            return Collections.emptyList();
+        }
+        List<Ticket> result = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            if (status == null || ticket.getTicketStatus() == status) {
+                result.add(ticket);
+            }
+        }
+        return result;
+    }
+
+    public List<Ticket> forEvent(String eventId, TicketStatus status) {
+        Set<Ticket>[] buckets = byEvent.get(eventId);
+        if (buckets == null) {
+            return Collections.emptyList();
+        }
+        if (status != null) {
+            return new ArrayList<>(buckets[status.ordinal()]);
+        }
+        List<Ticket> result = new ArrayList<>();
+        for (Set<Ticket> bucket : buckets) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Ticket>[] eventBuckets(String eventId) {
+        return byEvent.computeIfAbsent(eventId, _ -> {
+            Set<Ticket>[] buckets = (Set<Ticket>[]) new Set<?>[STATUSES.length];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = ConcurrentHashMap.newKeySet();
+            }
+            return buckets;
+        });
+    }
+
+}
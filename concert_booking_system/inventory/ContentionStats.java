@@ -0,0 +1,129 @@
+package concert_booking_system.inventory;
+
+import concert_booking_system.entity.SeatCode;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention seen by bookings of one event.
+ *
+ *   contended   reservations that ran into a seat held by another buyer
+ *   fastFails   requests turned away up front because a seat was already booked
+ *   timeouts    bounded-wait bookings that gave up at their deadline
+ *   waited      bounded-wait bookings that had to back off at least once,
+ *               and the total time they spent backing off, also split by the
+ *               section of the seat they waited on
+ *
+ * Per seat, only the contended count is kept (one int per slot, allocated on the
+ * first contention, so quiet events pay nothing), which is what points at the hot
+ * blocks. Updates are LongAdder / atomic; nothing is locked after that allocation.
+ */
+public class ContentionStats {
+
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder fastFails = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final int capacity;
+    private volatile AtomicIntegerArray contendedBySlot;
+    // Wait nanos per section, for seat ids in section-row-number form
+    private volatile AtomicLongArray waitNanosBySection;
+
+    public ContentionStats(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void recordContended(int slot) {
+        contended.increment();
+        AtomicIntegerArray bySlot = contendedBySlot;
+        if (bySlot == null) {
+            synchronized (this) {
+                if (contendedBySlot == null) {
+                    contendedBySlot = new AtomicIntegerArray(capacity);
+                }
+                bySlot = contendedBySlot;
+            }
+        }
+        bySlot.incrementAndGet(slot);
+    }
+
+    public void recordFastFail() {
+        fastFails.increment();
+    }
+
+    /**
+     * @param waitedNanos time spent backing off before the outcome
+     * @param timedOut    true if the booking gave up at its deadline
+     * @param seatId      last seat the booking found held (its section gets the wait)
+     */
+    public void recordWait(long waitedNanos, boolean timedOut, String seatId) {
+        waited.increment();
+        waitNanos.add(waitedNanos);
+        if (timedOut) {
+            timeouts.increment();
+        }
+        int code = seatId == null ? -1 : SeatCode.parse(seatId);
+        if (code >= 0) {
+            AtomicLongArray bySection = waitNanosBySection;
+            if (bySection == null) {
+                synchronized (this) {
+                    if (waitNanosBySection == null) {
+                        waitNanosBySection = new AtomicLongArray(SeatCode.MAX_SECTION + 1);
+                    }
+                    bySection = waitNanosBySection;
+                }
+            }
+            bySection.addAndGet(SeatCode.section(code), waitedNanos);
+        }
+    }
+
+    public long getContended() {
+        return contended.sum();
+    }
+
+    public long getFastFails() {
+        return fastFails.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getWaited() {
+        return waited.sum();
+    }
+
+    public long getTotalWaitMillis() {
+        return waitNanos.sum() / 1_000_000;
+    }
+
+    /**
+     * @return wait time in millis indexed by section number (all zero if none recorded)
+     */
+    public long[] getWaitMillisBySection() {
+        long[] millis = new long[SeatCode.MAX_SECTION + 1];
+        AtomicLongArray bySection = waitNanosBySection;
+        if (bySection != null) {
+            for (int section = 0; section < millis.length; section++) {
+                millis[section] = bySection.get(section) / 1_000_000;
+            }
+        }
+        return millis;
+    }
+
+    public int getContended(int slot) {
+        AtomicIntegerArray bySlot = contendedBySlot;
+        return bySlot == null ? 0 : bySlot.get(slot);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentionStats{contended=" + getContended() + ", fastFails=" + getFastFails()
+                + ", waited=" + getWaited() + ", timeouts=" + getTimeouts()
+                + ", totalWaitMillis=" + getTotalWaitMillis() + "}";
+    }
+
+}
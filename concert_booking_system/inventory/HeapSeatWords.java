@@ -0,0 +1,31 @@
+package concert_booking_system.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * On-heap store: one AtomicLongArray, lost on restart.
+ */
+public class HeapSeatWords implements SeatWords {
+
+    private final AtomicLongArray words;
+
+    public HeapSeatWords(int length) {
+        this.words = new AtomicLongArray(length);
+    }
+
+    @Override
+    public int length() {
+        return words.length();
+    }
+
+    @Override
+    public long get(int index) {
+        return words.get(index);
+    }
+
+    @Override
+    public boolean compareAndSet(int index, long expected, long next) {
+        return words.compareAndSet(index, expected, next);
+    }
+
+}
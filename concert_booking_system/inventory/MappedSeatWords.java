@@ -0,0 +1,130 @@
+package concert_booking_system.inventory;
+
+import concert_booking_system.entity.SeatLayout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap store backed by a memory-mapped file.
+ *
+ * FILE LAYOUT:
+ *   [long MAGIC][long wordCount][long seatCount][long layout fingerprint][word 0]...
+ * The 32-byte header keeps every word 8-byte aligned, which the VarHandle needs
+ * for atomic access. State lives in the page cache, not the Java heap, so thousands
+ * of large shows add no GC pressure, and reopening the same file after a restart
+ * picks the seat states back up - but only for the same layout: a file written for
+ * other seats (or the same count in another order) would shift every state to the
+ * wrong seat, so it is reset instead.
+ *
+ * The file is a cache of seat states, not a record of bookings. The OS writes pages
+ * back lazily and a crash can leave a seat BOOKED with no ticket behind it; with the
+ * booking journal enabled, recovery reconciles the restored states against the
+ * replayed tickets (the journal is the source of truth). Call force() for a durable point.
+ */
+public class MappedSeatWords implements SeatWords {
+
+    private static final long MAGIC = 0x5345415453543032L; // "SEATST02"
+    private static final int HEADER_BYTES = 32;
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int length;
+    private final boolean restored;
+
+    private MappedSeatWords(FileChannel channel, MappedByteBuffer buffer, int length, boolean restored) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.length = length;
+        this.restored = restored;
+    }
+
+    /**
+     * Maps file for the layout's seat states, reusing its contents only if it was
+     * written for the same layout (seat count and fingerprint).
+     */
+    public static MappedSeatWords open(Path file, SeatLayout layout) {
+        int length = SeatInventory.wordsFor(layout.size());
+        long fingerprint = layout.fingerprint();
+        try {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = HEADER_BYTES + (long) length * Long.BYTES;
+            boolean existed = channel.size() > 0;
+            if (channel.size() > size) {
+                channel.truncate(size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            boolean restored = existed
+                    && (long) LONGS.get(buffer, 0) == MAGIC
+                    && (long) LONGS.get(buffer, 8) == length
+                    && (long) LONGS.get(buffer, 16) == layout.size()
+                    && (long) LONGS.get(buffer, 24) == fingerprint;
+            if (!restored) {
+                if (existed) {
+                    System.err.println("[MappedSeatWords] " + file + " was written for another seat layout; resetting");
+                }
+                // Clear the magic first, so a crash mid-reset never leaves a valid header over stale words
+                LONGS.setVolatile(buffer, 0, 0L);
+                for (int offset = HEADER_BYTES; offset < size; offset += Long.BYTES) {
+                    LONGS.set(buffer, offset, 0L);
+                }
+                LONGS.set(buffer, 8, (long) length);
+                LONGS.set(buffer, 16, (long) layout.size());
+                LONGS.set(buffer, 24, fingerprint);
+                LONGS.setVolatile(buffer, 0, MAGIC);
+            }
+            return new MappedSeatWords(channel, buffer, length, restored);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map seat store " + file, e);
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public long get(int index) {
+        return (long) LONGS.getVolatile(buffer, offset(index));
+    }
+
+    @Override
+    public boolean compareAndSet(int index, long expected, long next) {
+        return LONGS.compareAndSet(buffer, offset(index), expected, next);
+    }
+
+    @Override
+    public boolean isRestored() {
+        return restored;
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[MappedSeatWords] Close failed: " + e.getMessage());
+        }
+    }
+
+    private static int offset(int index) {
+        return HEADER_BYTES + index * Long.BYTES;
+    }
+
+}
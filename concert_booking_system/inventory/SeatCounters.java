@@ -0,0 +1,144 @@
+package concert_booking_system.inventory;
+
+import concert_booking_system.entity.SeatLayout;
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.enums.SeatType;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SeatCounters - Seat counts per (SeatType, SeatStatus) for one event
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. PACKING:
+ *    - One AtomicLong per SeatType holds the AVAILABLE, SELECTED and
+ *      UNDER_MAINTENANCE counts as three biased 21-bit fields; BOOKED is the type's
+ *      capacity minus the other three, so it needs no field
+ *    - The bias lets a field dip below zero for a moment (see TRACK) without
+ *      borrowing from its neighbour
+ *
+ * 2. SEED:
+ *    - Counted once from the inventory's words when the inventory is built (this
+ *      includes seats restored from a mapped store), before any booking can run
+ *
+ * 3. TRACK (called by SeatInventory after each CAS, on the booking thread):
+ *    - A transition of a seat of type T from A to B is one getAndAdd on T's word:
+ *      the delta adds 1 to B's field and takes 1 from A's in a single atomic step,
+ *      so no reader ever sees a seat counted in both states or in neither
+ *    - Holds, bookings, cancels, expiries, rollbacks and maintenance all go through
+ *      the inventory's CAS, so no booking path has to update counters by hand
+ *
+ * 4. READ:
+ *    - One volatile read per type. Every state of a type comes from the same read,
+ *      so per-type answers (available(T), isSoldOut) are exact for the transitions
+ *      counted so far; a transition takes effect in the counts right after its CAS.
+ *      Two transitions of one seat on different threads may be counted in either
+ *      order, which can leave a field at -1 for an instant; reads clamp at 0.
+ */
+public class SeatCounters {
+
+    private static final SeatType[] TYPES = SeatType.values();
+    private static final int FIELD_BITS = 21;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+    private static final long BIAS = 1L << (FIELD_BITS - 2);
+    // Largest count a field can hold on top of its bias
+    private static final long MAX_SEATS_PER_TYPE = FIELD_MASK - BIAS;
+    // Bit offset of each status's field; -1 for BOOKED (derived)
+    private static final int[] SHIFTS = new int[SeatStatus.values().length];
+    // Packed word with every field at its bias (all counts zero)
+    private static final long ZERO;
+
+    static {
+        SHIFTS[SeatStatus.AVAILABLE.ordinal()] = 0;
+        SHIFTS[SeatStatus.SELECTED.ordinal()] = FIELD_BITS;
+        SHIFTS[SeatStatus.UNDER_MAINTENANCE.ordinal()] = 2 * FIELD_BITS;
+        SHIFTS[SeatStatus.BOOKED.ordinal()] = -1;
+        ZERO = BIAS | BIAS << FIELD_BITS | BIAS << 2 * FIELD_BITS;
+    }
+
+    private final SeatLayout layout;
+    // Indexed by type ordinal
+    private final AtomicLong[] packed;
+    private final long[] capacities;
+
+    SeatCounters(SeatLayout layout, SeatWords words) {
+        this.layout = layout;
+        this.packed = new AtomicLong[TYPES.length];
+        this.capacities = new long[TYPES.length];
+        long[] seed = new long[TYPES.length];
+        Arrays.fill(seed, ZERO);
+        for (int slot = 0; slot < layout.size(); slot++) {
+            int type = layout.seatTypeAt(slot).ordinal();
+            capacities[type]++;
+            seed[type] += unit(SeatInventory.statusAt(words, slot));
+        }
+        for (int type = 0; type < TYPES.length; type++) {
+            if (capacities[type] > MAX_SEATS_PER_TYPE) {
+                throw new IllegalArgumentException("Too many " + TYPES[type] + " seats to count: " + capacities[type]);
+            }
+            packed[type] = new AtomicLong(seed[type]);
+        }
+    }
+
+    void onTransition(int slot, SeatStatus from, SeatStatus to) {
+        SeatType type = layout.seatTypeAt(slot);
+        packed[type.ordinal()].getAndAdd(unit(to) - unit(from));
+    }
+
+    public long count(SeatType type, SeatStatus status) {
+        return count(type, status, packed[type.ordinal()].get());
+    }
+
+    public long count(SeatStatus status) {
+        long total = 0;
+        for (SeatType type : TYPES) {
+            total += count(type, status);
+        }
+        return total;
+    }
+
+    public long available(SeatType type) {
+        return count(type, SeatStatus.AVAILABLE);
+    }
+
+    public long available() {
+        return count(SeatStatus.AVAILABLE);
+    }
+
+    /**
+     * @return true if no seat is free or held; held seats may still come back on expiry
+     */
+    public boolean isSoldOut() {
+        for (SeatType type : TYPES) {
+            // Both states from one read, so a seat moving between them is never missed
+            long word = packed[type.ordinal()].get();
+            if (count(type, SeatStatus.AVAILABLE, word) > 0 || count(type, SeatStatus.SELECTED, word) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long count(SeatType type, SeatStatus status, long word) {
+        int shift = SHIFTS[status.ordinal()];
+        if (shift >= 0) {
+            return Math.max(0, ((word >>> shift) & FIELD_MASK) - BIAS);
+        }
+        long others = 0;
+        for (int otherShift : SHIFTS) {
+            if (otherShift >= 0) {
+                others += ((word >>> otherShift) & FIELD_MASK) - BIAS;
+            }
+        }
+        return Math.max(0, capacities[type.ordinal()] - others);
+    }
+
+    private static long unit(SeatStatus status) {
+        int shift = SHIFTS[status.ordinal()];
+        return shift < 0 ? 0 : 1L << shift;
+    }
+
+}
@@ -0,0 +1,316 @@
+package concert_booking_system.inventory;
+
+import concert_booking_system.entity.SeatLayout;
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.enums.SeatType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SeatInventory - Lock-free seat state store for one event
+ *
+ * ENCODING:
+ * =========
+ * Each seat state takes 2 bits (SeatStatus ordinal), 32 seats per long word:
+ *   slot s -> word s / 32, bit offset (s % 32) * 2
+ * An 80k-seat venue fits in 2500 longs (~20KB) instead of 80k lock objects.
+ *
+ * RESERVATION (multi-seat, all-or-nothing):
+ * =========================================
+ * 1. Sort requested slots (stable order keeps overlapping requests from livelocking)
+ * 2. CAS each slot expected -> next
+ * 3. On the first conflict, CAS every already-moved slot back to expected
+ *    and report the conflicting slot
+ *
+ * A slot we moved to the next state is owned by us until we move it again,
+ * so rollback never races with another writer.
+ *
+ * STORAGE:
+ * ========
+ * The words live in a SeatWords store: on the heap by default, or in a
+ * memory-mapped file (MappedSeatWords) so thousands of large shows stay off the
+ * Java heap and seat states outlive a restart.
+ *
+ * LISTENERS:
+ * ==========
+ * Every successful state change (including rollbacks) is reported to the
+ * registered Listeners on the changing thread, right after its CAS. Derived
+ * views such as availability feeds hang off this one hook instead of every
+ * booking path updating them by hand. The inventory's own SeatCounters are
+ * updated the same way, ahead of the listeners, without being registered.
+ */
+public class SeatInventory {
+
+    private static final int BITS_PER_SEAT = 2;
+    private static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+    private static final long STATE_MASK = (1L << BITS_PER_SEAT) - 1;
+    private static final SeatStatus[] STATES = SeatStatus.values();
+
+    // Low bit of every 2-bit seat field
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private final SeatLayout layout;
+    private final SeatWords words;
+    // Per SeatType, same word layout as words: low bit of a seat's field set if the seat has that type
+    private final long[][] typeMasks;
+    // Copy-on-write so the hot path reads a plain array
+    private volatile Listener[] listeners = new Listener[0];
+    private final SeatCounters counters;
+    private final ContentionStats contention;
+
+    /**
+     * Observes seat state changes. Called on the thread that made the change, so
+     * implementations must be quick and thread-safe.
+     */
+    public interface Listener {
+        void onTransition(int slot, SeatStatus from, SeatStatus to);
+    }
+
+    public SeatInventory(SeatLayout layout) {
+        this(layout, new HeapSeatWords(wordsFor(layout.size())));
+    }
+
+    public SeatInventory(SeatLayout layout, SeatWords words) {
+        if (words.length() != wordsFor(layout.size())) {
+            throw new IllegalArgumentException("Seat store holds " + words.length()
+                    + " words but the layout needs " + wordsFor(layout.size()));
+        }
+        this.layout = layout;
+        this.words = words;
+        this.typeMasks = new long[SeatType.values().length][words.length()];
+        for (int slot = 0; slot < layout.size(); slot++) {
+            // Booking states are per event; only maintenance carries over from the venue
+            SeatStatus settled = null;
+            if (layout.seatStatusAt(slot) == SeatStatus.UNDER_MAINTENANCE) {
+                settled = SeatStatus.UNDER_MAINTENANCE;
+            } else if (words.isRestored() && statusAt(words, slot) == SeatStatus.SELECTED) {
+                // Holds die with the process (the journal re-places any that are still live)
+                settled = SeatStatus.AVAILABLE;
+            }
+            if (settled != null) {
+                // Nothing else can reach the words yet, so one CAS always lands
+                int index = slot / SEATS_PER_WORD;
+                long word = words.get(index);
+                words.compareAndSet(index, word, withState(word, shift(slot), settled));
+            }
+            typeMasks[layout.seatTypeAt(slot).ordinal()][slot / SEATS_PER_WORD] |= 1L << shift(slot);
+        }
+        // Seeded from the settled states, then kept current by every later transition
+        this.counters = new SeatCounters(layout, words);
+        this.contention = new ContentionStats(layout.size());
+    }
+
+    /**
+     * @return number of 64-bit state words a layout of capacity seats needs
+     */
+    public static int wordsFor(int capacity) {
+        return (capacity + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+    }
+
+    public SeatLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return true if the seat states were restored from a previous run's store
+     */
+    public boolean isRestored() {
+        return words.isRestored();
+    }
+
+    public int capacity() {
+        return layout.size();
+    }
+
+    /**
+     * Live seat counts per type and status, read in O(1) instead of scanning seats.
+     */
+    public SeatCounters counters() {
+        return counters;
+    }
+
+    /**
+     * Contention seen by bookings on this inventory (recorded by the booking layer).
+     */
+    public ContentionStats contention() {
+        return contention;
+    }
+
+    /**
+     * Bytes held by the packed state words, for per-show memory accounting
+     * (off the heap when the store is memory-mapped).
+     */
+    public long memoryFootprintBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    public synchronized void addListener(Listener listener) {
+        Listener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        List<Listener> next = new ArrayList<>(Arrays.asList(listeners));
+        next.remove(listener);
+        listeners = next.toArray(new Listener[0]);
+    }
+
+    /**
+     * Copy of the packed state words (same 2-bit encoding), read word by word.
+     * Each word is atomic; the copy as a whole is not a single instant.
+     */
+    public long[] copyWords() {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Decodes one seat from words in the copyWords() encoding.
+     */
+    public static SeatStatus statusIn(long[] words, int slot) {
+        return STATES[(int) ((words[slot / SEATS_PER_WORD] >>> shift(slot)) & STATE_MASK)];
+    }
+
+    /**
+     * Releases the backing store; a mapped store is flushed to its file first.
+     */
+    public void close() {
+        words.close();
+    }
+
+    public SeatStatus getStatus(int slot) {
+        checkSlot(slot);
+        return statusAt(words, slot);
+    }
+
+    static SeatStatus statusAt(SeatWords words, int slot) {
+        long word = words.get(slot / SEATS_PER_WORD);
+        return STATES[(int) ((word >>> shift(slot)) & STATE_MASK)];
+    }
+
+    /**
+     * Unconditional write, for admin changes such as maintenance.
+     */
+    public void setStatus(int slot, SeatStatus status) {
+        checkSlot(slot);
+        int index = slot / SEATS_PER_WORD;
+        int shift = shift(slot);
+        long word;
+        do {
+            word = words.get(index);
+        } while (!words.compareAndSet(index, word, withState(word, shift, status)));
+        SeatStatus previous = STATES[(int) ((word >>> shift) & STATE_MASK)];
+        if (previous != status) {
+            notifyListeners(slot, previous, status);
+        }
+    }
+
+    public boolean compareAndSet(int slot, SeatStatus expected, SeatStatus next) {
+        checkSlot(slot);
+        int index = slot / SEATS_PER_WORD;
+        int shift = shift(slot);
+        long expectedBits = expected.ordinal();
+        while (true) {
+            long word = words.get(index);
+            if (((word >>> shift) & STATE_MASK) != expectedBits) {
+                return false;
+            }
+            // A neighbouring seat changing in the same word is not a conflict - retry
+            if (words.compareAndSet(index, word, withState(word, shift, next))) {
+                if (expected != next) {
+                    notifyListeners(slot, expected, next);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves every slot from expected to next, or none of them.
+     *
+     * @return -1 on success, otherwise the first slot that was not in the expected state
+     */
+    public int tryTransition(int[] slots, SeatStatus expected, SeatStatus next) {
+        int[] ordered = slots.clone();
+        Arrays.sort(ordered);
+        for (int i = 0; i < ordered.length; i++) {
+            if (!compareAndSet(ordered[i], expected, next)) {
+                // Roll back what we already moved
+                for (int j = i - 1; j >= 0; j--) {
+                    compareAndSet(ordered[j], next, expected);
+                }
+                return ordered[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds up to maxRuns non-overlapping runs of count adjacent AVAILABLE seats of the
+     * given type, front of the house first.
+     *
+     * BITMAP SCAN:
+     *   free seats in a word = ~(w | w >>> 1) & LOW_BITS (state 00), masked by seat type.
+     *   Words with no free seat of the type are skipped whole, so sold-out areas cost
+     *   one read per 32 seats. The result is a snapshot hint - reserve with tryTransition.
+     *
+     * @return start slots of the runs found (possibly empty)
+     */
+    public int[] findFreeRuns(SeatType type, int count, int maxRuns) {
+        long[] typeMask = typeMasks[type.ordinal()];
+        int[] starts = new int[maxRuns];
+        int found = 0;
+        int runStart = 0;
+        int runLength = 0;
+        for (int index = 0; index < typeMask.length && found < maxRuns; index++) {
+            long word = words.get(index);
+            long free = ~(word | (word >>> 1)) & LOW_BITS & typeMask[index];
+            if (free == 0) {
+                runLength = 0;
+                continue;
+            }
+            for (int i = 0; i < SEATS_PER_WORD && found < maxRuns; i++) {
+                if ((free & (1L << (i * BITS_PER_SEAT))) == 0) {
+                    runLength = 0;
+                    continue;
+                }
+                if (runLength++ == 0) {
+                    runStart = index * SEATS_PER_WORD + i;
+                }
+                if (runLength == count) {
+                    starts[found++] = runStart;
+                    runLength = 0;
+                }
+            }
+        }
+        return Arrays.copyOf(starts, found);
+    }
+
+    private void notifyListeners(int slot, SeatStatus from, SeatStatus to) {
+        counters.onTransition(slot, from, to);
+        for (Listener listener : listeners) {
+            listener.onTransition(slot, from, to);
+        }
+    }
+
+    private static int shift(int slot) {
+        return (slot % SEATS_PER_WORD) * BITS_PER_SEAT;
+    }
+
+    private static long withState(long word, int shift, SeatStatus status) {
+        return (word & ~(STATE_MASK << shift)) | ((long) status.ordinal() << shift);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= layout.size()) {
+            throw new IllegalArgumentException("Seat slot out of range: " + slot);
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package concert_booking_system.inventory;
+
+/**
+ * Backing store for SeatInventory's packed state words. Implementations must give
+ * volatile reads and atomic compare-and-set per word.
+ */
+public interface SeatWords {
+
+    int length();
+
+    long get(int index);
+
+    boolean compareAndSet(int index, long expected, long next);
+
+    /**
+     * @return true if the words were loaded from a previous run rather than freshly zeroed
+     */
+    default boolean isRestored() {
+        return false;
+    }
+
+    default void close() {
+    }
+
+}
@@ -0,0 +1,236 @@
+package concert_booking_system.metrics;
+
+import concert_booking_system.entity.SeatLayout;
+import concert_booking_system.inventory.ContentionStats;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BookingMetrics - In-process booking metrics, read by pulling (getters) or dumped
+ * as text / JSON
+ *
+ *   phase latency   one LatencyHistogram per Phase of a booking
+ *   counters        bookings, failures, contended attempts, deduplicated retries,
+ *                   cancellations, refunds, seats a cancellation found not BOOKED
+ *   hot seats       approximate top-K most requested seats (HotSeats)
+ *
+ * Everything recorded on the booking path is a LongAdder or an atomic array
+ * increment: a full booking records about a dozen of them, which stays far below
+ * the cost of the CAS reservation and the journal write around it.
+ */
+public class BookingMetrics {
+
+    private static final int HOT_SEATS = 10;
+
+    /**
+     * Phases of one booking; histograms hold their latencies in nanoseconds.
+     */
+    public enum Phase {
+        // Resolving the request: event, seat ids, slots, promo code
+        VALIDATE,
+        // Reserving the seats: CAS in LOCK_FREE mode, queue + apply in SINGLE_WRITER
+        ACQUIRE,
+        // Round trip to the payment gateway
+        PAYMENT,
+        // Booking the seats, storing the ticket and waiting for the journal
+        COMMIT,
+        // Time bookTicketWithin spent backing off from held seats
+        CONTENDED_WAIT
+    }
+
+    private final LatencyHistogram[] phases;
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder refunds = new LongAdder();
+    private final LongAdder unreleasedSeats = new LongAdder();
+    private final HotSeats hotSeats = new HotSeats(HOT_SEATS);
+
+    public BookingMetrics() {
+        phases = new LatencyHistogram[Phase.values().length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordPhase(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    public void recordBooking() {
+        bookings.increment();
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    public void recordContended() {
+        contended.increment();
+    }
+
+    public void recordDeduplicated() {
+        deduplicated.increment();
+    }
+
+    public void recordCancellation() {
+        cancellations.increment();
+    }
+
+    public void recordRefund() {
+        refunds.increment();
+    }
+
+    public void recordUnreleasedSeat() {
+        unreleasedSeats.increment();
+    }
+
+    public void recordSeatRequest(String eventId, SeatLayout layout, int slot) {
+        hotSeats.record(eventId, layout, slot);
+    }
+
+    public LatencyHistogram getPhase(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    public long getBookings() {
+        return bookings.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getContended() {
+        return contended.sum();
+    }
+
+    public long getDeduplicated() {
+        return deduplicated.sum();
+    }
+
+    public long getCancellations() {
+        return cancellations.sum();
+    }
+
+    public long getRefunds() {
+        return refunds.sum();
+    }
+
+    public long getUnreleasedSeats() {
+        return unreleasedSeats.sum();
+    }
+
+    public List<HotSeats.HotSeat> getHotSeats() {
+        return hotSeats.top();
+    }
+
+    /**
+     * @param events per-event contention, in the order to print
+     */
+    public String toText(Map<String, ContentionStats> events) {
+        StringBuilder out = new StringBuilder();
+        out.append("bookings=").append(getBookings())
+                .append(" failures=").append(getFailures())
+                .append(" contended=").append(getContended())
+                .append(" deduplicated=").append(getDeduplicated())
+                .append(" cancellations=").append(getCancellations())
+                .append(" refunds=").append(getRefunds())
+                .append(" unreleasedSeats=").append(getUnreleasedSeats()).append('\n');
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = getPhase(phase);
+            out.append(String.format(Locale.ROOT, "%-15s count=%d mean=%.3fms p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms%n",
+                    phase, histogram.getCount(), millis(histogram.getMeanNanos()),
+                    millis(histogram.percentileNanos(50)), millis(histogram.percentileNanos(99)),
+                    millis(histogram.percentileNanos(99.9)), millis(histogram.getMaxNanos())));
+        }
+        for (Map.Entry<String, ContentionStats> event : events.entrySet()) {
+            out.append("event ").append(event.getKey()).append(' ').append(event.getValue()).append('\n');
+        }
+        for (HotSeats.HotSeat seat : getHotSeats()) {
+            out.append("hot seat ").append(seat.getEventId()).append('/').append(seat.getSeatId())
+                    .append(" ~").append(seat.getEstimate()).append(" requests\n");
+        }
+        return out.toString();
+    }
+
+    public String toJson(Map<String, ContentionStats> events) {
+        StringBuilder out = new StringBuilder("{");
+        out.append("\"bookings\":").append(getBookings())
+                .append(",\"failures\":").append(getFailures())
+                .append(",\"contended\":").append(getContended())
+                .append(",\"deduplicated\":").append(getDeduplicated())
+                .append(",\"cancellations\":").append(getCancellations())
+                .append(",\"refunds\":").append(getRefunds())
+                .append(",\"unreleasedSeats\":").append(getUnreleasedSeats());
+        out.append(",\"phases\":{");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = getPhase(phase);
+            if (phase.ordinal() > 0) {
+                out.append(',');
+            }
+            out.append('"').append(phase).append("\":{\"count\":").append(histogram.getCount())
+                    .append(",\"meanNanos\":").append(histogram.getMeanNanos())
+                    .append(",\"p50Nanos\":").append(histogram.percentileNanos(50))
+                    .append(",\"p99Nanos\":").append(histogram.percentileNanos(99))
+                    .append(",\"p999Nanos\":").append(histogram.percentileNanos(99.9))
+                    .append(",\"maxNanos\":").append(histogram.getMaxNanos()).append('}');
+        }
+        out.append("},\"events\":{");
+        boolean first = true;
+        for (Map.Entry<String, ContentionStats> event : events.entrySet()) {
+            ContentionStats stats = event.getValue();
+            out.append(first ? "" : ",").append(quote(event.getKey()))
+                    .append(":{\"contended\":").append(stats.getContended())
+                    .append(",\"fastFails\":").append(stats.getFastFails())
+                    .append(",\"waited\":").append(stats.getWaited())
+                    .append(",\"timeouts\":").append(stats.getTimeouts())
+                    .append(",\"totalWaitMillis\":").append(stats.getTotalWaitMillis())
+                    .append(",\"waitMillisBySection\":{");
+            long[] bySection = stats.getWaitMillisBySection();
+            boolean firstSection = true;
+            for (int section = 0; section < bySection.length; section++) {
+                if (bySection[section] > 0) {
+                    out.append(firstSection ? "" : ",").append('"').append(section).append("\":").append(bySection[section]);
+                    firstSection = false;
+                }
+            }
+            out.append("}}");
+            first = false;
+        }
+        out.append("},\"hotSeats\":[");
+        first = true;
+        for (HotSeats.HotSeat seat : getHotSeats()) {
+            out.append(first ? "" : ",").append("{\"event\":").append(quote(seat.getEventId()))
+                    .append(",\"seat\":").append(quote(seat.getSeatId()))
+                    .append(",\"requests\":").append(seat.getEstimate()).append('}');
+            first = false;
+        }
+        return out.append("]}").toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String quote(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+}
@@ -0,0 +1,162 @@
+package concert_booking_system.metrics;
+
+import concert_booking_system.entity.SeatLayout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HotSeats - Approximate top-K most requested seats across all events
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. COUNT-MIN SKETCH:
+ *    - DEPTH rows of WIDTH counters; a seat (eventId hash, slot) bumps one counter
+ *      per row, and its estimate is the smallest of them
+ *    - Estimates never undercount; they overcount only by collisions, bounded by
+ *      roughly total / WIDTH. Fixed 128KB whatever the number of seats or events
+ *
+ * 2. TOP-K:
+ *    - A seat whose estimate beats the smallest in the top-K is admitted under
+ *      the lock, evicting that smallest one. The threshold and the member keys
+ *      are volatile reads, so neither cold seats nor seats already in the top-K
+ *      take the lock; members' counts are read back from the sketch on report
+ *    - Only admitted seats materialize their seat id string
+ */
+public class HotSeats {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1 << 12;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int k;
+    private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+    // Guarded by this
+    private final Map<Long, HotSeat> top = new HashMap<>();
+    // Copy of top's keys for the lock-free membership check
+    private volatile long[] topKeys = new long[0];
+    private volatile long admissionThreshold;
+
+    public HotSeats(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Top-K size must be positive");
+        }
+        this.k = k;
+    }
+
+    public void record(String eventId, SeatLayout layout, int slot) {
+        long key = key(eventId, slot);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(row * WIDTH + column(key, row)));
+        }
+        // Seats already in the top-K are counted by the sketch alone
+        if (estimate > admissionThreshold && !isTop(key)) {
+            admit(key, estimate, eventId, layout, slot);
+        }
+    }
+
+    /**
+     * @return up to k hottest seats with their current estimates, hottest first
+     */
+    public synchronized List<HotSeat> top() {
+        List<HotSeat> result = new ArrayList<>(top.size());
+        for (Map.Entry<Long, HotSeat> entry : top.entrySet()) {
+            HotSeat seat = entry.getValue();
+            result.add(new HotSeat(seat.eventId, seat.seatId, estimate(entry.getKey())));
+        }
+        result.sort(Comparator.comparingLong(HotSeat::getEstimate).reversed());
+        return result;
+    }
+
+    private boolean isTop(long key) {
+        for (long topKey : topKeys) {
+            if (topKey == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void admit(long key, long estimate, String eventId, SeatLayout layout, int slot) {
+        if (top.containsKey(key)) {
+            return;
+        }
+        if (top.size() >= k) {
+            long coldestKey = 0;
+            long coldestEstimate = Long.MAX_VALUE;
+            for (Long topKey : top.keySet()) {
+                long topEstimate = estimate(topKey);
+                if (topEstimate < coldestEstimate) {
+                    coldestKey = topKey;
+                    coldestEstimate = topEstimate;
+                }
+            }
+            if (estimate <= coldestEstimate) {
+                admissionThreshold = coldestEstimate;
+                return;
+            }
+            top.remove(coldestKey);
+        }
+        top.put(key, new HotSeat(eventId, layout.seatAt(slot).getSeatId(), 0));
+        long[] keys = new long[top.size()];
+        long threshold = Long.MAX_VALUE;
+        int i = 0;
+        for (Long topKey : top.keySet()) {
+            keys[i++] = topKey;
+            threshold = Math.min(threshold, estimate(topKey));
+        }
+        topKeys = keys;
+        admissionThreshold = top.size() < k ? 0 : threshold;
+    }
+
+    private long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(row * WIDTH + column(key, row)));
+        }
+        return estimate;
+    }
+
+    private static long key(String eventId, int slot) {
+        return ((long) eventId.hashCode() << 32) | (slot & 0xFFFFFFFFL);
+    }
+
+    private static int column(long key, int row) {
+        long h = (key ^ SEEDS[row]) * 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & (WIDTH - 1);
+    }
+
+    public static final class HotSeat {
+        private final String eventId;
+        private final String seatId;
+        private final long estimate;
+
+        private HotSeat(String eventId, String seatId, long estimate) {
+            this.eventId = eventId;
+            this.seatId = seatId;
+            this.estimate = estimate;
+        }
+
+        public String getEventId() {
+            return eventId;
+        }
+
+        public String getSeatId() {
+            return seatId;
+        }
+
+        public long getEstimate() {
+            return estimate;
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package concert_booking_system.payment;
+
+import concert_booking_system.entity.Ticket;
+import concert_booking_system.exception.PaymentProcessingException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for a real gateway with configurable latency and failure rate,
+ * so end-to-end throughput can be load-tested without a provider.
+ */
+public class FakePaymentGateway implements PaymentGateway {
+
+    private final long latencyMillis;
+    private final double failureRate;
+    private final AtomicLong charges = new AtomicLong();
+    private final AtomicLong refunds = new AtomicLong();
+
+    public FakePaymentGateway(long latencyMillis, double failureRate) {
+        if (latencyMillis < 0) {
+            throw new IllegalArgumentException("Latency cannot be negative");
+        }
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Failure rate must be between 0 and 1");
+        }
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void charge(Ticket ticket) throws PaymentProcessingException {
+        simulateRoundTrip();
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new PaymentProcessingException("Payment processing failed");
+        }
+        charges.incrementAndGet();
+    }
+
+    @Override
+    public void refund(Ticket ticket) {
+        simulateRoundTrip();
+        refunds.incrementAndGet();
+    }
+
+    public long getChargeCount() {
+        return charges.get();
+    }
+
+    public long getRefundCount() {
+        return refunds.get();
+    }
+
+    private void simulateRoundTrip() {
+        if (latencyMillis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentProcessingException("Payment interrupted");
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package concert_booking_system.payment;
+
+import concert_booking_system.entity.Ticket;
+import concert_booking_system.exception.PaymentProcessingException;
+
+/**
+ * Strategy for the external payment provider. Calls may block for the
+ * provider's round trip, so BookingSystem never invokes them with seats locked.
+ */
+public interface PaymentGateway {
+
+    void charge(Ticket ticket) throws PaymentProcessingException;
+
+    void refund(Ticket ticket);
+
+}
@@ -0,0 +1,314 @@
+package concert_booking_system.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * BookingJournal - Append-only, group-committed binary log of booking state changes
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. APPEND (any thread):
+ *    - Encode the record into a CRC-framed byte[] on the caller's thread
+ *    - Enqueue it with a CompletableFuture; the future completes once the
+ *      record is on disk (fsync'd), so callers choose whether to wait
+ *
+ * 2. GROUP COMMIT (single writer thread):
+ *    - Block for the first queued record, then drain everything else queued
+ *      (up to MAX_BATCH) into the same batch
+ *    - Copy frames into one write buffer, write, then force() ONCE for the batch
+ *    - Complete every future in the batch
+ *    Under load hundreds of bookings share one fsync, so durability costs
+ *    latency, not throughput.
+ *
+ * 3. SEGMENTS & SNAPSHOTS:
+ *    - The log is split into numbered segments: wal-00000001.log, wal-00000002.log ...
+ *    - rotate() is queued like a record, so it is ordered with appends: everything
+ *      enqueued before it lands in the old segment, everything after in the new one
+ *    - snapshot-N.bin holds the full state as of the start of segment N; recovery
+ *      loads the newest snapshot and replays segments >= N
+ *
+ * 4. WRITE FAILURES:
+ *    - A failed write or fsync fails every record not yet acknowledged, and the
+ *      writer rolls to a new segment before taking anything else: the old one may
+ *      end in a torn frame, and recovery truncates a segment at its first bad frame,
+ *      so records appended behind it would be lost
+ *    - If no new segment can be opened, every record fails until one can
+ */
+public class BookingJournal {
+
+    private static final int QUEUE_SIZE = 1 << 16;
+    private static final int MAX_BATCH = 4096;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writerThread;
+    private final AtomicBoolean isRunning;
+    private final ByteBuffer writeBuffer;
+    // Writer thread only; null after a failure until a new segment opens
+    private FileChannel channel;
+    private int segment;
+
+    public BookingJournal(Path directory, int firstSegment) throws IOException {
+        this.directory = directory;
+        this.segment = firstSegment;
+        this.channel = openSegment(firstSegment);
+        this.queue = new LinkedBlockingQueue<>(QUEUE_SIZE);
+        this.writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        this.isRunning = new AtomicBoolean(true);
+        this.writerThread = new Thread(this::writeLoop, "BookingJournal-Writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * @return completes when the record is durable; fails if the write or fsync failed
+     */
+    public CompletableFuture<Void> append(JournalRecord record) {
+        if (!isRunning.get()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Journal is closed"));
+        }
+        Pending pending = new Pending(JournalReader.encode(record));
+        enqueue(pending);
+        return pending.future;
+    }
+
+    /**
+     * Starts a new segment after everything already appended.
+     *
+     * @return completes with the new segment number once the old one is closed
+     */
+    public CompletableFuture<Integer> rotate() {
+        CompletableFuture<Integer> rotated = new CompletableFuture<>();
+        Pending pending = new Pending(null);
+        pending.future.whenComplete((_, ex) -> {
+            if (ex != null) {
+                rotated.completeExceptionally(ex);
+            } else {
+                rotated.complete(pending.rotatedTo);
+            }
+        });
+        enqueue(pending);
+        return rotated;
+    }
+
+    /**
+     * Flushes what is queued and stops the writer.
+     */
+    public void close() {
+        isRunning.set(false);
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        // Backpressure rather than dropping: a lost record is a lost booking
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        List<Pending> unsynced = new ArrayList<>(MAX_BATCH);
+        while (isRunning.get() || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                if (channel == null) {
+                    roll();
+                }
+
+                for (Pending pending : batch) {
+                    if (pending.frame != null) {
+                        buffer(pending.frame);
+                        unsynced.add(pending);
+                    } else {
+                        sync(unsynced);
+                        roll();
+                        pending.rotatedTo = segment;
+                        pending.future.complete(null);
+                    }
+                }
+                sync(unsynced);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                System.err.println("[BookingJournal] Write failed: " + e.getMessage());
+                for (Pending pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+                writeBuffer.clear();
+                unsynced.clear();
+                try {
+                    roll();
+                } catch (IOException reopen) {
+                    System.err.println("[BookingJournal] New segment failed: " + reopen.getMessage());
+                }
+            }
+            batch.clear();
+        }
+        closeChannel();
+    }
+
+    // Closes the current segment (if any) and opens the next; channel stays null if the open fails
+    private void roll() throws IOException {
+        closeChannel();
+        segment++;
+        channel = openSegment(segment);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[BookingJournal] Close failed: " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    private void buffer(byte[] frame) throws IOException {
+        if (frame.length > writeBuffer.remaining()) {
+            flushBuffer();
+        }
+        if (frame.length > writeBuffer.capacity()) {
+            channel.write(ByteBuffer.wrap(frame));
+        } else {
+            writeBuffer.put(frame);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    // One fsync for the whole group, then acknowledge everyone in it
+    private void sync(List<Pending> unsynced) throws IOException {
+        if (unsynced.isEmpty()) {
+            return;
+        }
+        flushBuffer();
+        channel.force(false);
+        for (Pending pending : unsynced) {
+            pending.future.complete(null);
+        }
+        unsynced.clear();
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(segmentFile(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public static Path segmentFile(Path directory, int number) {
+        return directory.resolve(String.format("wal-%08d.log", number));
+    }
+
+    public static Path snapshotFile(Path directory, int number) {
+        return directory.resolve(String.format("snapshot-%08d.bin", number));
+    }
+
+    /**
+     * @return segment numbers present in the directory, ascending
+     */
+    public static List<Integer> listSegments(Path directory) throws IOException {
+        return listNumbered(directory, "wal-", ".log");
+    }
+
+    /**
+     * @return number of the newest complete snapshot, or -1 if there is none
+     */
+    public static int latestSnapshot(Path directory) throws IOException {
+        List<Integer> snapshots = listNumbered(directory, "snapshot-", ".bin");
+        return snapshots.isEmpty() ? -1 : snapshots.get(snapshots.size() - 1);
+    }
+
+    /**
+     * Writes the snapshot to a temp file, fsyncs it and renames it into place, so a
+     * crash mid-snapshot leaves the previous snapshot in charge.
+     */
+    public static void writeSnapshot(Path directory, int number, Iterable<JournalRecord> records) throws IOException {
+        Path target = snapshotFile(directory, number);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            for (JournalRecord record : records) {
+                out.write(JournalReader.encode(record));
+            }
+        }
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Drops segments and snapshots made redundant by snapshot-N.
+     */
+    public static void deleteBefore(Path directory, int number) throws IOException {
+        for (int old : listNumbered(directory, "wal-", ".log")) {
+            if (old < number) {
+                Files.deleteIfExists(segmentFile(directory, old));
+            }
+        }
+        for (int old : listNumbered(directory, "snapshot-", ".bin")) {
+            if (old < number) {
+                Files.deleteIfExists(snapshotFile(directory, old));
+            }
+        }
+    }
+
+    private static List<Integer> listNumbered(Path directory, String prefix, String suffix) throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> numbers.add(Integer.parseInt(
+                            name.substring(prefix.length(), name.length() - suffix.length()))));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private static final class Pending {
+        private final byte[] frame;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int rotatedTo;
+
+        private Pending(byte[] frame) {
+            this.frame = frame;
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package concert_booking_system.persistence;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Frame format shared by journal segments and snapshots:
+ *   [int payloadLength][payload][int crc32(payload)]
+ *
+ * A crash can leave a half-written last frame; reading stops at the first
+ * short or corrupt frame, and repair() truncates the file back to the last good one.
+ */
+public final class JournalReader {
+
+    // Guards against a corrupt length making us allocate gigabytes
+    private static final int MAX_FRAME_BYTES = 1 << 20;
+
+    private JournalReader() {
+    }
+
+    static byte[] encode(JournalRecord record) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+            record.writeTo(new DataOutputStream(payload));
+            byte[] bytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(bytes.length + 8);
+            DataOutputStream out = new DataOutputStream(frame);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt((int) crc.getValue());
+            return frame.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Feeds every intact record to the consumer, in order.
+     *
+     * @return number of bytes covered by intact frames
+     */
+    public static long read(Path file, Consumer<JournalRecord> consumer) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            CRC32 crc = new CRC32();
+            // One payload buffer and decoder for the whole file; recovery reads millions of frames
+            PayloadInput payload = new PayloadInput();
+            DataInputStream decoder = new DataInputStream(payload);
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    if (length <= 0 || length > MAX_FRAME_BYTES) {
+                        break;
+                    }
+                    in.readFully(payload.reset(length), 0, length);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload.buffer(), 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                consumer.accept(JournalRecord.readFrom(decoder));
+                valid += length + 8L;
+            }
+        }
+        return valid;
+    }
+
+    private static final class PayloadInput extends ByteArrayInputStream {
+        PayloadInput() {
+            super(new byte[256]);
+        }
+
+        byte[] reset(int length) {
+            if (buf.length < length) {
+                buf = new byte[Math.max(length, buf.length * 2)];
+            }
+            pos = 0;
+            count = length;
+            return buf;
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * Reads the file and cuts off any torn tail so later appends start on a frame boundary.
+     */
+    public static void repair(Path file, Consumer<JournalRecord> consumer) throws IOException {
+        long valid = read(file, consumer);
+        if (valid < Files.size(file)) {
+            System.err.println("[JournalReader] Truncating torn tail of " + file.getFileName()
+                    + " at byte " + valid);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+    }
+
+}
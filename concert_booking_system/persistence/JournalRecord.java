@@ -0,0 +1,136 @@
+package concert_booking_system.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * One entry in the booking journal (and in snapshots, which are just record streams).
+ *
+ * All types share one binary layout; fields a type doesn't use are written empty:
+ *   type(byte) id(UTF) refId(UTF) userId(UTF) eventId(UTF) amount(long) time(long) slotCount(int) slots(int...)
+ *
+ *   BOOKED       id=ticketId refId=holdId amount=price time=bookingTimestamp slots=seats
+ *   CANCELLED    id=ticketId
+ *   HOLD_PLACED  id=holdId amount=price time=expiresAt slots=seats
+ *   HOLD_ENDED   id=holdId (released, expired or failed to confirm)
+ *   DETACHED     eventId (handed to another instance; its tickets left with it)
+ */
+public final class JournalRecord {
+
+    public enum Type {
+        BOOKED,
+        CANCELLED,
+        HOLD_PLACED,
+        HOLD_ENDED,
+        DETACHED
+    }
+
+    private static final Type[] TYPES = Type.values();
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final Type type;
+    private final String id;
+    private final String refId;
+    private final String userId;
+    private final String eventId;
+    private final long amount;
+    private final long time;
+    private final int[] slots;
+
+    private JournalRecord(Type type, String id, String refId, String userId, String eventId,
+                          long amount, long time, int[] slots) {
+        this.type = type;
+        this.id = id;
+        this.refId = refId == null ? "" : refId;
+        this.userId = userId == null ? "" : userId;
+        this.eventId = eventId == null ? "" : eventId;
+        this.amount = amount;
+        this.time = time;
+        this.slots = slots == null ? NO_SLOTS : slots;
+    }
+
+    public static JournalRecord booked(String ticketId, String holdId, String userId, String eventId,
+                                       long price, long bookingTimestamp, int[] slots) {
+        return new JournalRecord(Type.BOOKED, ticketId, holdId, userId, eventId, price, bookingTimestamp, slots);
+    }
+
+    public static JournalRecord cancelled(String ticketId) {
+        return new JournalRecord(Type.CANCELLED, ticketId, null, null, null, 0, 0, null);
+    }
+
+    public static JournalRecord holdPlaced(String holdId, String userId, String eventId,
+                                           long price, long expiresAt, int[] slots) {
+        return new JournalRecord(Type.HOLD_PLACED, holdId, null, userId, eventId, price, expiresAt, slots);
+    }
+
+    public static JournalRecord holdEnded(String holdId) {
+        return new JournalRecord(Type.HOLD_ENDED, holdId, null, null, null, 0, 0, null);
+    }
+
+    public static JournalRecord detached(String eventId) {
+        return new JournalRecord(Type.DETACHED, "", null, null, eventId, 0, 0, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRefId() {
+        return refId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public int[] getSlots() {
+        return slots;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeUTF(id);
+        out.writeUTF(refId);
+        out.writeUTF(userId);
+        out.writeUTF(eventId);
+        out.writeLong(amount);
+        out.writeLong(time);
+        out.writeInt(slots.length);
+        for (int slot : slots) {
+            out.writeInt(slot);
+        }
+    }
+
+    static JournalRecord readFrom(DataInput in) throws IOException {
+        Type type = TYPES[in.readUnsignedByte()];
+        String id = in.readUTF();
+        String refId = in.readUTF();
+        String userId = in.readUTF();
+        String eventId = in.readUTF();
+        long amount = in.readLong();
+        long time = in.readLong();
+        int[] slots = new int[in.readInt()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = in.readInt();
+        }
+        return new JournalRecord(type, id, refId, userId, eventId, amount, time, slots);
+    }
+
+}
@@ -0,0 +1,68 @@
+package concert_booking_system.persistence;
+
+/**
+ * What enableJournal found on disk and how long it took to replay.
+ */
+public class RecoveryStats {
+
+    private final int snapshot;
+    private final int segmentsReplayed;
+    private final long recordsReplayed;
+    private final long recordsSkipped;
+    private final int ticketsRecovered;
+    private final int holdsRestored;
+    private final long elapsedMillis;
+
+    public RecoveryStats(int snapshot,
+                         int segmentsReplayed,
+                         long recordsReplayed,
+                         long recordsSkipped,
+                         int ticketsRecovered,
+                         int holdsRestored,
+                         long elapsedMillis) {
+        this.snapshot = snapshot;
+        this.segmentsReplayed = segmentsReplayed;
+        this.recordsReplayed = recordsReplayed;
+        this.recordsSkipped = recordsSkipped;
+        this.ticketsRecovered = ticketsRecovered;
+        this.holdsRestored = holdsRestored;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getSnapshot() {
+        return snapshot;
+    }
+
+    public int getSegmentsReplayed() {
+        return segmentsReplayed;
+    }
+
+    public long getRecordsReplayed() {
+        return recordsReplayed;
+    }
+
+    public long getRecordsSkipped() {
+        return recordsSkipped;
+    }
+
+    public int getTicketsRecovered() {
+        return ticketsRecovered;
+    }
+
+    public int getHoldsRestored() {
+        return holdsRestored;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Recovered " + ticketsRecovered + " tickets and " + holdsRestored + " holds from "
+                + (snapshot < 0 ? "no snapshot" : "snapshot " + snapshot) + " + " + segmentsReplayed
+                + " segment(s): " + recordsReplayed + " records replayed, " + recordsSkipped
+                + " skipped, in " + elapsedMillis + "ms";
+    }
+
+}
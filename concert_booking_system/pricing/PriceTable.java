@@ -0,0 +1,132 @@
+package concert_booking_system.pricing;
+
+import concert_booking_system.enums.SeatType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable price rules for an event:
+ *   - a base price per SeatType
+ *   - optional per-section overrides for "section-row-number" seats (see SeatCode)
+ *   - surge tiers: once sell-through reaches a tier's threshold, every fare is
+ *     multiplied by that tier's percentage (the highest reached tier applies)
+ *
+ * Like ConsistentHashRing, changes return a new table (withBasePrice, ...), so a
+ * table handed to the PricingEngine can never change under a booking.
+ */
+public final class PriceTable {
+
+    private static final int TYPE_COUNT = SeatType.values().length;
+
+    /**
+     * The original fares: 100 REGULAR, 200 PREMIUM, 500 VIP, no surge.
+     */
+    public static final PriceTable DEFAULT = new PriceTable(new long[]{100, 200, 500},
+            Collections.emptyMap(), new int[0], new int[0]);
+
+    private final long[] basePrices;
+    // Section -> price per type, -1 where the base price applies
+    private final Map<Integer, long[]> sectionPrices;
+    // Ascending sell-through thresholds (percent) and their fare multipliers (percent)
+    private final int[] surgeThresholds;
+    private final int[] surgeMultipliers;
+
+    private PriceTable(long[] basePrices, Map<Integer, long[]> sectionPrices,
+                       int[] surgeThresholds, int[] surgeMultipliers) {
+        this.basePrices = basePrices;
+        this.sectionPrices = sectionPrices;
+        this.surgeThresholds = surgeThresholds;
+        this.surgeMultipliers = surgeMultipliers;
+    }
+
+    public PriceTable withBasePrice(SeatType type, long price) {
+        checkPrice(type, price);
+        long[] next = basePrices.clone();
+        next[type.ordinal()] = price;
+        return new PriceTable(next, sectionPrices, surgeThresholds, surgeMultipliers);
+    }
+
+    public PriceTable withSectionPrice(int section, SeatType type, long price) {
+        checkPrice(type, price);
+        Map<Integer, long[]> next = new HashMap<>(sectionPrices);
+        long[] prices = next.containsKey(section) ? next.get(section).clone() : unset();
+        prices[type.ordinal()] = price;
+        next.put(section, prices);
+        return new PriceTable(basePrices, Collections.unmodifiableMap(next), surgeThresholds, surgeMultipliers);
+    }
+
+    /**
+     * @param sellThroughPercent share of sellable seats booked or held at which the tier starts (1-100)
+     * @param multiplierPercent  fare multiplier, e.g. 125 for +25%
+     */
+    public PriceTable withSurgeTier(int sellThroughPercent, int multiplierPercent) {
+        if (sellThroughPercent <= 0 || sellThroughPercent > 100) {
+            throw new IllegalArgumentException("Sell-through threshold must be 1-100 percent");
+        }
+        if (multiplierPercent <= 0) {
+            throw new IllegalArgumentException("Surge multiplier must be positive");
+        }
+        int at = Arrays.binarySearch(surgeThresholds, sellThroughPercent);
+        if (at >= 0) {
+            int[] multipliers = surgeMultipliers.clone();
+            multipliers[at] = multiplierPercent;
+            return new PriceTable(basePrices, sectionPrices, surgeThresholds, multipliers);
+        }
+        at = -at - 1;
+        int[] thresholds = new int[surgeThresholds.length + 1];
+        int[] multipliers = new int[surgeThresholds.length + 1];
+        System.arraycopy(surgeThresholds, 0, thresholds, 0, at);
+        System.arraycopy(surgeMultipliers, 0, multipliers, 0, at);
+        thresholds[at] = sellThroughPercent;
+        multipliers[at] = multiplierPercent;
+        System.arraycopy(surgeThresholds, at, thresholds, at + 1, surgeThresholds.length - at);
+        System.arraycopy(surgeMultipliers, at, multipliers, at + 1, surgeThresholds.length - at);
+        return new PriceTable(basePrices, sectionPrices, thresholds, multipliers);
+    }
+
+    public long basePrice(SeatType type) {
+        return basePrices[(type == null ? SeatType.REGULAR : type).ordinal()];
+    }
+
+    /**
+     * @param section seat section, or -1 for seats outside the section-row-number scheme
+     */
+    public long price(int section, SeatType type) {
+        SeatType seatType = type == null ? SeatType.REGULAR : type;
+        long[] override = section < 0 ? null : sectionPrices.get(section);
+        if (override != null && override[seatType.ordinal()] >= 0) {
+            return override[seatType.ordinal()];
+        }
+        return basePrices[seatType.ordinal()];
+    }
+
+    /**
+     * @return multiplier percent of the highest tier reached, 100 below the first tier
+     */
+    public int surgeMultiplier(int sellThroughPercent) {
+        int multiplier = 100;
+        for (int i = 0; i < surgeThresholds.length && surgeThresholds[i] <= sellThroughPercent; i++) {
+            multiplier = surgeMultipliers[i];
+        }
+        return multiplier;
+    }
+
+    private static long[] unset() {
+        long[] prices = new long[TYPE_COUNT];
+        Arrays.fill(prices, -1);
+        return prices;
+    }
+
+    private static void checkPrice(SeatType type, long price) {
+        if (type == null) {
+            throw new IllegalArgumentException("Seat type cannot be null");
+        }
+        if (price < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+    }
+
+}
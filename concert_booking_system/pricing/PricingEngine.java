@@ -0,0 +1,161 @@
+package concert_booking_system.pricing;
+
+import concert_booking_system.entity.SeatCode;
+import concert_booking_system.entity.SeatLayout;
+import concert_booking_system.enums.SeatStatus;
+import concert_booking_system.inventory.SeatCounters;
+import concert_booking_system.inventory.SeatInventory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * PricingEngine - Fares for every booking, from per-event compiled price arrays
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. COMPILE (on register / setPriceTable, off the booking path):
+ *    - Resolve the PriceTable against the event's seat layout once:
+ *      prices[slot] = section override or base price for the seat's type
+ *    - Publish {table, prices} with one AtomicReference.set; bookings already
+ *      quoting keep the array they read, so a price change never tears a fare
+ *
+ * 2. QUOTE (every booking):
+ *    - fare = sum of prices[slot] over the request's slots
+ *    - surge: sell-through = (BOOKED + SELECTED) / sellable seats, read from the
+ *      inventory's SeatCounters in O(1); fare *= multiplier of the tier reached
+ *    - promo: fare -= fare * percentOff / 100
+ *    No allocation and no lock: array reads, a few LongAdder sums, one map lookup.
+ */
+public class PricingEngine {
+
+    private final Map<String, EventPrices> events;
+    private final Map<String, PromoCode> promoCodes;
+
+    public PricingEngine() {
+        this.events = new ConcurrentHashMap<>();
+        this.promoCodes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Starts pricing an event with table (PriceTable.DEFAULT if null).
+     */
+    public void register(String eventId, SeatInventory inventory, PriceTable table) {
+        EventPrices prices = new EventPrices(inventory);
+        prices.current.set(compile(inventory.getLayout(), table == null ? PriceTable.DEFAULT : table));
+        events.put(eventId, prices);
+    }
+
+    public void unregister(String eventId) {
+        events.remove(eventId);
+    }
+
+    /**
+     * Recompiles and swaps in a new table; takes effect for the next quote.
+     */
+    public void setPriceTable(String eventId, PriceTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Price table cannot be null");
+        }
+        EventPrices prices = eventPrices(eventId);
+        prices.current.set(compile(prices.inventory.getLayout(), table));
+    }
+
+    public PriceTable getPriceTable(String eventId) {
+        return eventPrices(eventId).current.get().table;
+    }
+
+    public void addPromoCode(PromoCode promoCode) {
+        if (promoCode == null) {
+            throw new IllegalArgumentException("Promo code cannot be null");
+        }
+        promoCodes.put(promoCode.getCode(), promoCode);
+    }
+
+    public void removePromoCode(String code) {
+        promoCodes.remove(code);
+    }
+
+    /**
+     * @return the promo code to apply (null for no code)
+     * @throws IllegalArgumentException if the code is unknown or not valid for the event
+     */
+    public PromoCode checkPromoCode(String eventId, String code) {
+        if (code == null) {
+            return null;
+        }
+        PromoCode promoCode = promoCodes.get(code);
+        if (promoCode == null || !promoCode.appliesTo(eventId)) {
+            throw new IllegalArgumentException("Invalid promo code for event " + eventId + ": " + code);
+        }
+        return promoCode;
+    }
+
+    /**
+     * Fare for the given seats of the event at current demand.
+     */
+    public long quote(String eventId, int[] slots, String promoCode) {
+        PromoCode promo = checkPromoCode(eventId, promoCode);
+        EventPrices prices = eventPrices(eventId);
+        CompiledPrices compiled = prices.current.get();
+
+        long fare = 0;
+        for (int slot : slots) {
+            fare += compiled.prices[slot];
+        }
+        int multiplier = compiled.table.surgeMultiplier(sellThroughPercent(prices.inventory.counters()));
+        if (multiplier != 100) {
+            fare = fare * multiplier / 100;
+        }
+        if (promo != null) {
+            fare -= fare * promo.getPercentOff() / 100;
+        }
+        return fare;
+    }
+
+    private static int sellThroughPercent(SeatCounters counters) {
+        long sold = counters.count(SeatStatus.BOOKED) + counters.count(SeatStatus.SELECTED);
+        long sellable = sold + counters.available();
+        return sellable == 0 ? 100 : (int) (sold * 100 / sellable);
+    }
+
+    private EventPrices eventPrices(String eventId) {
+        EventPrices prices = events.get(eventId);
+        if (prices == null) {
+            throw new IllegalArgumentException("Event not found: " + eventId);
+        }
+        return prices;
+    }
+
+    private static CompiledPrices compile(SeatLayout layout, PriceTable table) {
+        long[] prices = new long[layout.size()];
+        for (int slot = 0; slot < prices.length; slot++) {
+            int code = layout.codeAt(slot);
+            prices[slot] = table.price(code < 0 ? -1 : SeatCode.section(code), layout.seatTypeAt(slot));
+        }
+        return new CompiledPrices(table, prices);
+    }
+
+    private static final class EventPrices {
+        private final SeatInventory inventory;
+        private final AtomicReference<CompiledPrices> current = new AtomicReference<>();
+
+        private EventPrices(SeatInventory inventory) {
+            this.inventory = inventory;
+        }
+    }
+
+    private static final class CompiledPrices {
+        private final PriceTable table;
+        // Indexed by the inventory's seat slot
+        private final long[] prices;
+
+        private CompiledPrices(PriceTable table, long[] prices) {
+            this.table = table;
+            this.prices = prices;
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package concert_booking_system.pricing;
+
+/**
+ * A discount code: percentOff of the fare (after surge), for one event or, with a
+ * null eventId, for every event.
+ */
+public final class PromoCode {
+
+    private final String code;
+    private final int percentOff;
+    private final String eventId;
+
+    public PromoCode(String code, int percentOff, String eventId) {
+        if (code == null || code.trim().isEmpty()) {
+            throw new IllegalArgumentException("Promo code cannot be null or empty");
+        }
+        if (percentOff <= 0 || percentOff > 100) {
+            throw new IllegalArgumentException("Promo discount must be 1-100 percent");
+        }
+        this.code = code;
+        this.percentOff = percentOff;
+        this.eventId = eventId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getPercentOff() {
+        return percentOff;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public boolean appliesTo(String eventId) {
+        return this.eventId == null || this.eventId.equals(eventId);
+    }
+
+}
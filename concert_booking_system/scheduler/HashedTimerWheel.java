@@ -0,0 +1,169 @@
+package concert_booking_system.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * HashedTimerWheel - O(1) scheduling for large numbers of short timeouts
+ *
+ * ALGORITHM:
+ * ==========
+ *
+ * 1. WHEEL:
+ *    - Fixed ring of buckets (power of two), one bucket per tick
+ *    - A timeout due in d ticks goes to bucket (now + d) % size with
+ *      rounds = d / size full turns still to wait
+ *
+ * 2. SCHEDULE (any thread, O(1)):
+ *    - Push the timeout onto a lock-free pending queue
+ *    - The worker moves pending timeouts into their bucket on the next tick,
+ *      so buckets are only ever touched by the worker thread
+ *
+ * 3. CANCEL (any thread, O(1)):
+ *    - Flip a flag and drop the task, so whatever the task holds can be collected
+ *      at once; the worker unlinks the empty entry when it reaches the bucket
+ *
+ * 4. TICK (worker thread):
+ *    - Sleep until the next tick boundary
+ *    - Drain pending timeouts into buckets
+ *    - Walk the current bucket: run entries with rounds == 0, decrement the rest
+ *
+ * Timeouts fire up to one tick late, never early.
+ */
+public class HashedTimerWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<Timeout>[] buckets;
+    private final Queue<Timeout> pending;
+    private final AtomicBoolean started;
+    private final Thread worker;
+    private volatile boolean running;
+    private long startTime;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = (Queue<Timeout>[]) new Queue<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.started = new AtomicBoolean(false);
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Runs task once, roughly delayMillis from now, on the wheel's worker thread.
+     * Tasks should be short; anything slow belongs on another executor.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        if (started.compareAndSet(false, true)) {
+            startTime = System.currentTimeMillis();
+            running = true;
+            worker.start();
+        }
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + Math.max(0, delayMillis));
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = startTime + (tick + 1) * tickMillis;
+            long sleepMillis = deadline - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            // Never place a timeout behind the tick currently being processed
+            long dueTick = Math.max(tick, (timeout.deadline - startTime) / tickMillis);
+            timeout.rounds = (dueTick - tick) / buckets.length;
+            buckets[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                it.remove();
+                Runnable task = timeout.task;
+                if (task == null) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[HashedTimerWheel] Timeout task failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public static final class Timeout {
+        // Null once cancelled
+        private volatile Runnable task;
+        private final long deadline;
+        private volatile boolean cancelled;
+        // Only touched by the worker thread
+        private long rounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            task = null;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+}